@@ -34,6 +34,7 @@ android {
 }
 
 dependencies {
+    implementation(project(":engine"))
     implementation(libs.appcompat)
     implementation(libs.material)
     implementation(libs.activity)
@@ -0,0 +1,18 @@
+package com.example.labrite;
+
+import android.os.Trace;
+
+// Секции трассировки движка и вида в системном трейсе (Perfetto, systrace).
+// Когда запись трейса не идёт, Trace сам отбрасывает вызовы почти бесплатно.
+final class AndroidTraceSink implements Tracer.SectionSink {
+
+    @Override
+    public void beginSection(String name) {
+        Trace.beginSection(name);
+    }
+
+    @Override
+    public void endSection() {
+        Trace.endSection();
+    }
+}
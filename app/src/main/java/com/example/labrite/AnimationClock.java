@@ -0,0 +1,173 @@
+package com.example.labrite;
+
+import android.view.Choreographer;
+import android.view.View;
+
+// Единые часы анимаций на кадровом таймере дисплея (Choreographer).
+// Дорожки — заранее созданные объекты с примитивными полями; их значения
+// вычисляются прямо в onDraw по времени кадра, поэтому нет ни потоков,
+// ни sleep, ни аллокаций на кадр. Всё работает только в UI-потоке.
+final class AnimationClock implements Choreographer.FrameCallback {
+
+    private static final int MAX_TRACKS = 8;
+
+    private final View view;
+    private final Track[] tracks = new Track[MAX_TRACKS];
+    private int trackCount;
+    private long frameTimeNanos;
+    private boolean scheduled;
+    private boolean running;
+    // Следующий кадр запрошен из doFrame, то есть анимация идёт без перерыва
+    private boolean inFrame;
+    private boolean chained;
+    // Кадр часов, ещё не забранный onDraw: время vsync или -1
+    private long drawFrameNanos = -1;
+    private boolean drawChained;
+
+    AnimationClock(View view) {
+        this.view = view;
+    }
+
+    void addTrack(Track track) {
+        if (trackCount == MAX_TRACKS) {
+            throw new IllegalStateException("Too many animation tracks");
+        }
+        tracks[trackCount++] = track;
+    }
+
+    // Время текущего кадра, по нему onDraw вычисляет дорожки
+    long frameTimeNanos() {
+        return frameTimeNanos;
+    }
+
+    // Время vsync, если эту отрисовку запросили часы, иначе -1. Забирается
+    // один раз: следующий onDraw без нового тика часов уже не их кадр
+    long takeDrawFrame() {
+        long frame = drawFrameNanos;
+        drawFrameNanos = -1;
+        return frame;
+    }
+
+    // Забранный кадр запрошен предыдущим кадром часов и должен был прийти
+    // через один период после него; первый кадр после простоя — нет
+    boolean isDrawFrameChained() {
+        return drawChained;
+    }
+
+    void start(Track track, long durationNanos) {
+        // Время кадра Choreographer в той же шкале, что и System.nanoTime()
+        frameTimeNanos = Math.max(frameTimeNanos, System.nanoTime());
+        track.startNanos = frameTimeNanos;
+        track.durationNanos = durationNanos;
+        track.active = true;
+        schedule();
+    }
+
+    void stop(Track track) {
+        track.active = false;
+    }
+
+    // Окно видно и привязано — часы тикают; иначе кадры не запрашиваются
+    void setRunning(boolean running) {
+        this.running = running;
+        if (running) {
+            frameTimeNanos = Math.max(frameTimeNanos, System.nanoTime());
+            schedule();
+        } else if (scheduled) {
+            Choreographer.getInstance().removeFrameCallback(this);
+            scheduled = false;
+        }
+    }
+
+    @Override
+    public void doFrame(long frameTimeNanos) {
+        scheduled = false;
+        this.frameTimeNanos = frameTimeNanos;
+        drawFrameNanos = frameTimeNanos;
+        drawChained = chained;
+        view.invalidate();
+        inFrame = true;
+        schedule();
+        inFrame = false;
+    }
+
+    private void schedule() {
+        if (scheduled || !running || !hasActiveTracks()) {
+            return;
+        }
+        scheduled = true;
+        chained = inFrame;
+        Choreographer.getInstance().postFrameCallback(this);
+    }
+
+    private boolean hasActiveTracks() {
+        for (int i = 0; i < trackCount; i++) {
+            Track track = tracks[i];
+            if (track.active) {
+                // Законченная дорожка ещё получает один кадр, чтобы дорисовать конец
+                if (track.durationNanos > 0 && frameTimeNanos >= track.startNanos + track.durationNanos) {
+                    track.active = false;
+                    view.invalidate();
+                } else {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    // Дорожка анимации: время старта и длительность (0 — бесконечная)
+    static class Track {
+        long startNanos;
+        long durationNanos;
+        boolean active;
+
+        boolean isRunning(long frameTimeNanos) {
+            return active && (durationNanos == 0 || frameTimeNanos < startNanos + durationNanos);
+        }
+
+        // Доля пройденного времени от 0 до 1
+        float progress(long frameTimeNanos) {
+            if (durationNanos == 0) {
+                return 0f;
+            }
+            float t = (float) (frameTimeNanos - startNanos) / durationNanos;
+            return Math.max(0f, Math.min(1f, t));
+        }
+    }
+
+    // Скольжение шарика: смещение в клетках от конечной точки назад к начальной
+    static final class SlideTrack extends Track {
+        int fromDx;
+        int fromDy;
+
+        // Оставшаяся доля пути со сглаживанием ease-in-out
+        float remaining(long frameTimeNanos) {
+            if (!isRunning(frameTimeNanos)) {
+                return 0f;
+            }
+            return 1f - easeInOutCubic(progress(frameTimeNanos));
+        }
+
+        private static float easeInOutCubic(float t) {
+            if (t < 0.5f) {
+                return 4 * t * t * t;
+            } else {
+                float f = 2 * t - 2;
+                return 1 + f * f * f / 2;
+            }
+        }
+    }
+
+    // Бесконечная пульсация цели; остановленная рисуется в обычном размере
+    static final class PulseTrack extends Track {
+        static final double ANGULAR_SPEED = 0.0000005; // радиан на наносекунду
+
+        float scale(long frameTimeNanos) {
+            if (!active) {
+                return 1.0f;
+            }
+            return 1.0f + 0.2f * (float) Math.sin((frameTimeNanos - startNanos) * ANGULAR_SPEED);
+        }
+    }
+}
@@ -0,0 +1,169 @@
+package com.example.labrite;
+
+import android.content.pm.PackageManager;
+import android.graphics.Color;
+import android.os.Build;
+import android.os.Bundle;
+import android.util.Log;
+import android.view.View;
+import android.widget.Button;
+import android.widget.TextView;
+import android.widget.Toast;
+import androidx.appcompat.app.AppCompatActivity;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.Locale;
+
+// Экран диагностики: счётчики генерации уровней, время кадров и журнал
+// трассировки за время работы процесса, выгрузка всего в текстовый файл
+// в каталоге приложения
+public class DiagnosticsActivity extends AppCompatActivity {
+
+    private TextView reportText;
+    private Button refreshButton;
+    private Button resetButton;
+    private Button exportButton;
+    private Button traceLevelButton;
+    private Button backButton;
+
+    @Override
+    protected void onCreate(Bundle savedInstanceState) {
+        super.onCreate(savedInstanceState);
+
+        boolean isDarkTheme = SettingsActivity.isDarkTheme(this);
+        setTheme(isDarkTheme ? R.style.Theme_Labrite_Dark : R.style.Theme_Labrite_Light);
+        setContentView(R.layout.activity_diagnostics);
+
+        reportText = findViewById(R.id.reportText);
+        refreshButton = findViewById(R.id.refreshButton);
+        resetButton = findViewById(R.id.resetButton);
+        exportButton = findViewById(R.id.exportButton);
+        traceLevelButton = findViewById(R.id.traceLevelButton);
+        backButton = findViewById(R.id.backButton);
+
+        setupListeners();
+        updateTraceLevelText();
+        updateUIColors(isDarkTheme);
+        showReport();
+    }
+
+    @Override
+    protected void onResume() {
+        super.onResume();
+        showReport();
+    }
+
+    private void setupListeners() {
+        refreshButton.setOnClickListener(new View.OnClickListener() {
+            @Override
+            public void onClick(View v) {
+                showReport();
+            }
+        });
+
+        resetButton.setOnClickListener(new View.OnClickListener() {
+            @Override
+            public void onClick(View v) {
+                GameView.GENERATION_STATS.reset();
+                GameView.FRAME_STATS.reset();
+                Tracer.clear();
+                showReport();
+            }
+        });
+
+        exportButton.setOnClickListener(new View.OnClickListener() {
+            @Override
+            public void onClick(View v) {
+                exportReport();
+            }
+        });
+
+        traceLevelButton.setOnClickListener(new View.OnClickListener() {
+            @Override
+            public void onClick(View v) {
+                // По кругу: OFF → WARN → INFO → DEBUG
+                Tracer.setLevel((Tracer.getLevel() + 1) % (Tracer.DEBUG + 1));
+                updateTraceLevelText();
+            }
+        });
+
+        backButton.setOnClickListener(new View.OnClickListener() {
+            @Override
+            public void onClick(View v) {
+                finish();
+            }
+        });
+    }
+
+    private String buildReport() {
+        String time = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss", Locale.ROOT).format(new Date());
+        int gridSize = SettingsActivity.getGridSize(this);
+        return "Labrite " + versionName() + " diagnostics, " + time + "\n"
+                + Build.MODEL + ", API " + Build.VERSION.SDK_INT + ", grid " + gridSize + "x" + gridSize
+                + ", workers " + ParallelLevelGenerator.defaultWorkerCount() + "\n\n"
+                + "[level generation]\n"
+                + GameView.GENERATION_STATS.formatReport() + "\n"
+                + "[frames]\n"
+                + GameView.FRAME_STATS.formatReport() + "\n"
+                + "[trace, level " + Tracer.levelName(Tracer.getLevel()) + "]\n"
+                + Tracer.dump();
+    }
+
+    // Версия сборки в шапке отчёта, чтобы выгрузки разных сборок можно было сравнивать
+    private String versionName() {
+        try {
+            return getPackageManager().getPackageInfo(getPackageName(), 0).versionName;
+        } catch (PackageManager.NameNotFoundException e) {
+            return "?";
+        }
+    }
+
+    private void updateTraceLevelText() {
+        String[] names = {"OFF", "WARN", "INFO", "DEBUG"};
+        traceLevelButton.setText("Трассировка: " + names[Tracer.getLevel()]);
+    }
+
+    private void showReport() {
+        reportText.setText(buildReport());
+    }
+
+    // Файл пишется в личный каталог приложения на внешнем хранилище:
+    // разрешения не нужны, а забрать его можно через adb или файловый менеджер
+    private void exportReport() {
+        File dir = getExternalFilesDir(null);
+        if (dir == null) {
+            dir = getFilesDir();
+        }
+        String stamp = new SimpleDateFormat("yyyyMMdd-HHmmss", Locale.ROOT).format(new Date());
+        File file = new File(dir, "diagnostics-" + stamp + ".txt");
+        try (Writer out = new OutputStreamWriter(new FileOutputStream(file), StandardCharsets.UTF_8)) {
+            out.write(buildReport());
+            Toast.makeText(this, "Сохранено: " + file.getAbsolutePath(), Toast.LENGTH_LONG).show();
+        } catch (IOException e) {
+            Log.w("PFPUZ", "metrics export failed", e);
+            Toast.makeText(this, "Не удалось сохранить отчёт", Toast.LENGTH_SHORT).show();
+        }
+    }
+
+    private void updateUIColors(boolean isDarkTheme) {
+        int backgroundColor = isDarkTheme ? Color.parseColor("#1E1E1E") : Color.parseColor("#F5F5F5");
+        findViewById(android.R.id.content).setBackgroundColor(backgroundColor);
+        int cardBackground = isDarkTheme ? Color.parseColor("#2D2D2D") : Color.parseColor("#FFFFFF");
+        findViewById(R.id.reportScroll).setBackgroundColor(cardBackground);
+        reportText.setTextColor(isDarkTheme ? Color.parseColor("#FFFFFF") : Color.parseColor("#212121"));
+
+        int buttonBackground = isDarkTheme ? R.drawable.menu_button_bg : R.drawable.menu_button_bg_light;
+        int buttonText = isDarkTheme ? Color.parseColor("#FFFFFF") : Color.parseColor("#212121");
+        for (Button button : new Button[] {refreshButton, resetButton, exportButton, traceLevelButton, backButton}) {
+            button.setBackgroundResource(buttonBackground);
+            button.setTextColor(buttonText);
+        }
+    }
+}
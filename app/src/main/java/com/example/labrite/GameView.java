@@ -1,18 +1,26 @@
 package com.example.labrite;
 
 import android.content.Context;
+import android.graphics.Bitmap;
 import android.graphics.Canvas;
 import android.graphics.Color;
 import android.graphics.Paint;
 import android.graphics.Point;
 import android.util.AttributeSet;
+import android.view.Display;
 import android.view.MotionEvent;
 import android.view.View;
 import android.util.Log;
-import java.util.ArrayList;
-import java.util.LinkedList;
-import java.util.List;
-import java.util.Queue;
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.BooleanSupplier;
 
 public class GameView extends View {
     
@@ -20,45 +28,111 @@ public class GameView extends View {
         void onMoveMade(int movesLeft);
         void onLevelCompleted();
         void onGameOver();
+        // Уровень с несколькими шарами не построился и играется одним
+        void onPieceFallback(int level);
     }
     
     private GameListener gameListener;
     private Paint wallPaint, playerPaint, targetPaint, pathPaint, borderPaint;
+    private Paint shadowPaint, loadingPaint, warningPaint;
     private int cellSize;
-    private int gridWidth = 10;
-    private int gridHeight = 10;
+    // Размер поля для следующих уровней; текущий уровень рисуется по своему полю
+    private int gridWidth = SettingsActivity.DEFAULT_GRID_SIZE;
+    private int gridHeight = SettingsActivity.DEFAULT_GRID_SIZE;
+    // Камера: смещение видимого окна в пикселях поля
+    private float cameraX = 0;
+    private float cameraY = 0;
+    private static final float MIN_CELL_SIZE_DP = 28f;
+    
+    // Закэшированный слой статичного поля (стены, проходы, сетка)
+    private Bitmap boardLayer;
+    private Canvas boardLayerCanvas;
+    private int layerOriginX, layerOriginY;
+    private int layerCols, layerRows, layerCellSize;
+    private boolean boardLayerDirty = true;
+    private BoardGeometry boardGeometry;
+    private Level boardGeometryLevel;
+    private final BoardRenderer boardRenderer = new BoardRenderer();
+    private final CanvasBoardSurface boardSurface = new CanvasBoardSurface();
+    
     private boolean isDarkTheme = true;
+    // Текущий уровень публикуется одной атомарной заменой ссылки; onDraw и
+    // movePlayer берут снимок один раз и работают только с ним
+    private final AtomicReference<Level> activeLevel = new AtomicReference<>();
     private Point playerPos;
-    private Point targetPos;
-    private boolean[][] walls;
+    private final HintCache hintCache = new HintCache();
     private int movesLeft;
     private int currentLevel;
     private boolean gameCompleted = false;
     private boolean gameOver = false;
     private boolean isPreparingLevel = false;
     
-    // Анимация
-    private float playerAnimationX = 0;
-    private float playerAnimationY = 0;
-    private boolean isAnimating = false;
-    private long animationStartTime = 0;
-    private Point animationStartPos;
-    private Point animationEndPos;
-    private Direction animationDirection;
+    // Правила хода и итог уровня; GameView только рисует и анимирует их
+    private final LevelPlay play = new LevelPlay();
+    private int currentMaxMoves;
+    // Запись сыгранных уровней: сид и засчитанные свайпы, для повтора без View
+    private final SessionRecorder sessionRecorder = new SessionRecorder();
+    private SessionJournal sessionJournal;
+    private static final String SESSION_LOG_FILE = "sessions.bin";
+    
+    // Режим нескольких шаров: 1 — обычная игра. Шар 0 всегда совпадает с playerPos,
+    // за ним идёт камера, а остальные скользят по той же дорожке playerSlide.
+    private int pieceCount = 1;
+    private final int[] pieceFromDx = new int[PieceStates.MAX_PIECES];
+    private final int[] pieceFromDy = new int[PieceStates.MAX_PIECES];
+    // Генератор таких уровней живёт только в потоке loadExecutor
+    private MultiPieceGenerator multiPieceGenerator;
     
-    // Алгоритм поиска пути
-    private boolean[][] visited;
-    private int minMovesToTarget = -1;
+    // Анимация: дорожки вычисляются в onDraw по времени кадра
+    private static final long SLIDE_DURATION_NANOS = 300_000_000L;
+    private final AnimationClock animationClock = new AnimationClock(this);
+    private final AnimationClock.SlideTrack playerSlide = new AnimationClock.SlideTrack();
+    private final AnimationClock.PulseTrack targetPulse = new AnimationClock.PulseTrack();
+    
+    // Время кадров и пропуски по фазам. Живёт дольше GameView, как и счётчики
+    // генерации, и читается экраном диагностики — тоже из UI-потока.
+    static final FrameStats FRAME_STATS = new FrameStats();
+    // После показа нового поля кадры ещё считаются переходом: первый кадр
+    // перерисовывает слой поля
+    private static final long TRANSITION_TAIL_NANOS = 300_000_000L;
+    private long transitionUntilNanos;
+    // Оверлей с числами поверх поля; текст пересобирается раз в полсекунды
+    private static final long OVERLAY_REFRESH_NANOS = 500_000_000L;
+    private boolean frameOverlay;
+    private Paint overlayPaint;
+    private String[] overlayLines = new String[0];
+    private long overlayUpdatedNanos;
+    
+    // Счётчики генерации общие на процесс: их читает экран диагностики,
+    // и они переживают пересоздание GameView
+    static final GenerationStats GENERATION_STATS = new GenerationStats();
+    // Генерация уровней на пуле фоновых потоков
+    private final ParallelLevelGenerator levelGenerator = new ParallelLevelGenerator(
+            ParallelLevelGenerator.defaultWorkerCount(), GENERATION_STATS);
+    // Сколько следующих уровней держать построенными заранее
+    public static final int PREFETCH_DEPTH = 2;
+    private final LevelPrefetcher prefetcher = new LevelPrefetcher(levelGenerator, PREFETCH_DEPTH + 1);
+    // Уровни, сохранённые на диск в прошлых запусках, и их фоновое пополнение
+    // Открываются в потоке загрузки; до этого null, и игра просто генерирует уровни
+    private volatile LevelStore levelStore;
+    private volatile LevelRefiller levelRefiller;
+    // Загрузка уровня по требованию: одна задача за раз, помеченная номером запроса.
+    // Новый запуск уровня увеличивает номер, и устаревшая задача сама сворачивается.
+    private final ExecutorService loadExecutor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "LevelLoad");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final AtomicInteger levelToken = new AtomicInteger();
+    private Future<?> loadJob;
+    private static final String LEVEL_STORE_FILE = "levels.bin";
+    // Зерно партии: из него выводятся зёрна всех уровней
+    private long sessionSeed;
     
     // Переменные для определения свайпов
     private float startX, startY;
     private static final float MIN_SWIPE_DISTANCE = 50f;
     
-    // Направления движения
-    private enum Direction {
-        UP, DOWN, LEFT, RIGHT
-    }
-    
     public GameView(Context context) {
         super(context);
         init();
@@ -72,18 +146,45 @@ public class GameView extends View {
     @Override
     protected void onAttachedToWindow() {
         super.onAttachedToWindow();
-        Log.d("PFPUZ", "GameView.onAttachedToWindow");
+        Tracer.d("GameView.onAttachedToWindow");
+        Display display = getDisplay();
+        if (display != null && display.getRefreshRate() > 0) {
+            FRAME_STATS.setFramePeriodNanos((long) (1e9 / display.getRefreshRate()));
+        }
+        animationClock.setRunning(true);
         post(new Runnable() {
             @Override
             public void run() {
-                Log.d("PFPUZ", "Attached, size w=" + getWidth() + " h=" + getHeight());
+                Tracer.d("attached w=%d h=%d", getWidth(), getHeight());
                 invalidate();
             }
         });
     }
     
+    @Override
+    protected void onDetachedFromWindow() {
+        super.onDetachedFromWindow();
+        cancelLevelLoading();
+        animationClock.setRunning(false);
+        FRAME_STATS.onPause();
+        releaseBoardLayer();
+        boardLayerDirty = true;
+    }
+    
+    @Override
+    protected void onWindowVisibilityChanged(int visibility) {
+        super.onWindowVisibilityChanged(visibility);
+        animationClock.setRunning(visibility == VISIBLE);
+        if (visibility == VISIBLE) {
+            // Оверлей включается в настройках, а из них возвращаемся сюда
+            frameOverlay = SettingsActivity.isFrameOverlayEnabled(getContext());
+        } else {
+            FRAME_STATS.onPause();
+        }
+    }
+    
     private void init() {
-        Log.d("PFPUZ", "GameView.init");
+        Tracer.d("GameView.init");
         
         // Проверяем тему
         isDarkTheme = SettingsActivity.isDarkTheme(getContext());
@@ -110,97 +211,262 @@ public class GameView extends View {
         borderPaint.setColor(isDarkTheme ? Color.parseColor("#2A2E3A") : Color.parseColor("#C8E6C9"));
         borderPaint.setStyle(Paint.Style.STROKE);
         borderPaint.setStrokeWidth(1);
+        
+        // Кисти для onDraw создаются один раз, а не в каждом кадре
+        shadowPaint = new Paint(playerPaint);
+        shadowPaint.setColor(Color.parseColor("#80000000"));
+        
+        loadingPaint = new Paint();
+        loadingPaint.setColor(Color.parseColor("#FFFFFFFF"));
+        loadingPaint.setTextAlign(Paint.Align.CENTER);
+        
+        warningPaint = new Paint();
+        warningPaint.setColor(Color.parseColor("#F39C12"));
+        warningPaint.setTextAlign(Paint.Align.CENTER);
+        
+        overlayPaint = new Paint();
+        overlayPaint.setColor(Color.parseColor("#FFFFEB3B"));
+        overlayPaint.setShadowLayer(2, 1, 1, Color.BLACK);
+        frameOverlay = SettingsActivity.isFrameOverlayEnabled(getContext());
+        
+        animationClock.addTrack(playerSlide);
+        animationClock.addTrack(targetPulse);
+        
         setBackgroundColor(isDarkTheme ? Color.parseColor("#1E1E1E") : Color.parseColor("#FFFFFF"));
         
-        walls = new boolean[gridHeight][gridWidth];
+        // Пустое поле до первого готового уровня
+        LevelGrid empty = new LevelGrid(gridWidth, gridHeight);
+        SlideTable emptyTable = new SlideTable(gridWidth, gridHeight);
+        emptyTable.rebuild(empty);
+        activeLevel.set(new Level(empty, emptyTable, 1, 1, gridWidth - 2, gridHeight - 2, -1, 0, 0L));
+        // Файл хранилища открывается, форматируется и сканируется не в UI-потоке.
+        // Загрузка уровней идёт в том же потоке, поэтому любая из них видит уже открытое хранилище.
+        final File storeFile = new File(getContext().getFilesDir(), LEVEL_STORE_FILE);
+        loadExecutor.execute(() -> openLevelStore(storeFile));
+        sessionJournal = new SessionJournal(new File(getContext().getFilesDir(), SESSION_LOG_FILE));
         playerPos = new Point(1, 1);
-        targetPos = new Point(gridWidth - 2, gridHeight - 2);
     }
     
     @Override
     protected void onSizeChanged(int w, int h, int oldw, int oldh) {
         super.onSizeChanged(w, h, oldw, oldh);
-        cellSize = Math.min(w / gridWidth, h / gridHeight);
-        Log.d("PFPUZ", "onSizeChanged w=" + w + " h=" + h + " cellSize=" + cellSize);
+        updateCellSize(w, h);
+        invalidateBoardLayer();
+        Tracer.d("onSizeChanged w=%d h=%d cellSize=%d", w, h, cellSize);
+    }
+    
+    // Клетка подгоняется под экран, но не мельче минимума: большое поле
+    // не сжимается в точки, а прокручивается вслед за игроком
+    private void updateCellSize(int w, int h) {
+        if (w <= 0 || h <= 0) {
+            return;
+        }
+        Level level = activeLevel.get();
+        int fitCellSize = Math.min(w / level.getWidth(), h / level.getHeight());
+        int minCellSize = Math.min(Math.min(w, h),
+                Math.round(MIN_CELL_SIZE_DP * getResources().getDisplayMetrics().density));
+        cellSize = Math.max(fitCellSize, minCellSize);
+    }
+    
+    // Камера держит игрока в центре экрана, не выходя за края поля
+    private void updateCamera(Level level, float playerCenterX, float playerCenterY) {
+        cameraX = cameraOffset(playerCenterX, level.getWidth() * cellSize, getWidth());
+        cameraY = cameraOffset(playerCenterY, level.getHeight() * cellSize, getHeight());
+    }
+    
+    private static float cameraOffset(float center, int boardSize, int viewSize) {
+        if (boardSize <= viewSize) {
+            return 0;
+        }
+        return Math.max(0, Math.min(boardSize - viewSize, center - viewSize / 2f));
+    }
+    
+    // Слой покрывает видимое окно с запасом в четверть экрана с каждой стороны,
+    // так что при прокрутке он перерисовывается только когда окно выходит за запас
+    private void ensureBoardLayer(Level level, int firstX, int firstY, int lastX, int lastY) {
+        int boardWidth = level.getWidth();
+        int boardHeight = level.getHeight();
+        int marginX = getWidth() / cellSize / 4 + 1;
+        int marginY = getHeight() / cellSize / 4 + 1;
+        int cols = Math.min(boardWidth, getWidth() / cellSize + 2 + 2 * marginX);
+        int rows = Math.min(boardHeight, getHeight() / cellSize + 2 + 2 * marginY);
+        
+        if (boardLayer == null || layerCols != cols || layerRows != rows || layerCellSize != cellSize) {
+            releaseBoardLayer();
+            // Поле полностью непрозрачное, поэтому хватает RGB_565
+            boardLayer = Bitmap.createBitmap(cols * cellSize, rows * cellSize, Bitmap.Config.RGB_565);
+            boardLayerCanvas = new Canvas(boardLayer);
+            layerCols = cols;
+            layerRows = rows;
+            layerCellSize = cellSize;
+            boardLayerDirty = true;
+        }
+        
+        if (boardGeometry == null || boardGeometryLevel != level) {
+            // Геометрия привязана к снимку уровня, а не к изменяемому состоянию вида
+            boardGeometry = BoardGeometry.build(level.grid);
+            boardGeometryLevel = level;
+            boardLayerDirty = true;
+        }
+        
+        boolean covered = firstX >= layerOriginX && lastX < layerOriginX + cols
+                && firstY >= layerOriginY && lastY < layerOriginY + rows;
+        if (!boardLayerDirty && covered) {
+            return;
+        }
+        layerOriginX = Math.max(0, Math.min(boardWidth - cols, firstX - marginX));
+        layerOriginY = Math.max(0, Math.min(boardHeight - rows, firstY - marginY));
+        renderBoardLayer();
+        boardLayerDirty = false;
+    }
+    
+    private void renderBoardLayer() {
+        boardSurface.canvas = boardLayerCanvas;
+        boardRenderer.render(boardGeometry, boardSurface, layerOriginX, layerOriginY, layerCols, layerRows, cellSize);
+    }
+    
+    // Рисует геометрию поля на Canvas слоя нужными кистями
+    private final class CanvasBoardSurface implements BoardSurface {
+        Canvas canvas;
+        
+        @Override
+        public void drawRect(int paint, float left, float top, float right, float bottom) {
+            canvas.drawRect(left, top, right, bottom, paint == PAINT_WALL ? wallPaint : pathPaint);
+        }
+        
+        @Override
+        public void drawGridLines(float[] points, int offset, int count) {
+            canvas.drawLines(points, offset, count, borderPaint);
+        }
+    }
+    
+    // Поле, размер или цвета изменились — слой перерисуется в следующем кадре
+    private void invalidateBoardLayer() {
+        boardLayerDirty = true;
+    }
+    
+    private void releaseBoardLayer() {
+        if (boardLayer != null) {
+            boardLayer.recycle();
+            boardLayer = null;
+            boardLayerCanvas = null;
+        }
     }
     
     @Override
     protected void onDraw(Canvas canvas) {
         super.onDraw(canvas);
-        Log.d("PFPUZ", "onDraw width=" + getWidth() + " height=" + getHeight() + " cell=" + cellSize);
+        long drawStart = System.nanoTime();
+        Tracer.beginSection("GameView.draw");
+        try {
+            drawFrame(canvas);
+        } finally {
+            Tracer.endSection();
+        }
+        // Пропуски считаются по времени vsync и только для кадров, которые часы запросили подряд
+        long clockFrame = animationClock.takeDrawFrame();
+        FRAME_STATS.onFrame(clockFrame >= 0 ? clockFrame : drawStart, System.nanoTime() - drawStart,
+                framePhase(drawStart), clockFrame >= 0 && animationClock.isDrawFrameChained());
+        if (frameOverlay) {
+            drawFrameOverlay(canvas, drawStart);
+        }
+    }
+    
+    private FrameStats.Phase framePhase(long now) {
+        if (isPreparingLevel || now < transitionUntilNanos) {
+            return FrameStats.Phase.TRANSITION;
+        }
+        if (playerSlide.isRunning(animationClock.frameTimeNanos())) {
+            return FrameStats.Phase.SLIDE;
+        }
+        return FrameStats.Phase.IDLE;
+    }
+    
+    // Сам оверлей в замер не входит: он рисуется после записи кадра
+    private void drawFrameOverlay(Canvas canvas, long now) {
+        if (now - overlayUpdatedNanos >= OVERLAY_REFRESH_NANOS) {
+            overlayLines = FRAME_STATS.formatOverlay().split("\\R");
+            overlayUpdatedNanos = now;
+        }
+        float textSize = Math.max(18, getWidth() / 36f);
+        overlayPaint.setTextSize(textSize);
+        for (int i = 0; i < overlayLines.length; i++) {
+            canvas.drawText(overlayLines[i], textSize / 2, textSize * (i + 1.5f), overlayPaint);
+        }
+    }
+    
+    private void drawFrame(Canvas canvas) {
         // Если размер ячейки еще не посчитан, посчитаем на лету
             if (cellSize <= 0) {
-            int w = getWidth();
-            int h = getHeight();
-            if (w > 0 && h > 0) {
-                cellSize = Math.min(w / gridWidth, h / gridHeight);
-            }
+            updateCellSize(getWidth(), getHeight());
             if (cellSize <= 0) {
-                    Log.w("PFPUZ", "cellSize not ready yet, skip frame");
+                    Tracer.w("cellSize not ready yet, skip frame");
                 return; // ждем валидного размера
             }
         }
 
         if (isPreparingLevel) {
-            Paint loadingPaint = new Paint();
-            loadingPaint.setColor(Color.parseColor("#FFFFFFFF"));
             loadingPaint.setTextSize(Math.max(28, cellSize/3));
-            loadingPaint.setTextAlign(Paint.Align.CENTER);
             canvas.drawText("Загрузка уровня...", getWidth()/2f, getHeight()/2f, loadingPaint);
             return;
         }
         
-        // Рисуем сетку
-        for (int y = 0; y < gridHeight; y++) {
-            for (int x = 0; x < gridWidth; x++) {
-                int left = x * cellSize;
-                int top = y * cellSize;
-                int right = left + cellSize;
-                int bottom = top + cellSize;
-                
-                if (walls[y][x]) {
-                    canvas.drawRect(left, top, right, bottom, wallPaint);
-                } else {
-                    canvas.drawRect(left, top, right, bottom, pathPaint);
-                }
-                
-                // Рисуем границы ячеек
-                canvas.drawRect(left, top, right, bottom, borderPaint);
-            }
-        }
+        // Весь кадр рисуется из одного снимка уровня
+        Level level = activeLevel.get();
+        
+        // Позиция игрока с анимацией: за ней следует камера
+        long frameTime = animationClock.frameTimeNanos();
+        float slideRemaining = playerSlide.remaining(frameTime);
+        float playerCenterX = (playerPos.x + playerSlide.fromDx * slideRemaining) * cellSize + cellSize/2;
+        float playerCenterY = (playerPos.y + playerSlide.fromDy * slideRemaining) * cellSize + cellSize/2;
+        updateCamera(level, playerCenterX, playerCenterY);
+        
+        canvas.save();
+        canvas.translate(-cameraX, -cameraY);
+        
+        // Статичное поле берём из заранее отрисованного слоя, а в каждом кадре
+        // рисуем только цель и игрока
+        int firstX = Math.max(0, (int) (cameraX / cellSize));
+        int firstY = Math.max(0, (int) (cameraY / cellSize));
+        int lastX = Math.min(level.getWidth() - 1, (int) ((cameraX + getWidth()) / cellSize));
+        int lastY = Math.min(level.getHeight() - 1, (int) ((cameraY + getHeight()) / cellSize));
+        ensureBoardLayer(level, firstX, firstY, lastX, lastY);
+        canvas.drawBitmap(boardLayer, layerOriginX * cellSize, layerOriginY * cellSize, null);
         
         // Рисуем цель (пульсирующий эффект)
-        int targetLeft = targetPos.x * cellSize;
-        int targetTop = targetPos.y * cellSize;
+        int targetLeft = level.targetX * cellSize;
+        int targetTop = level.targetY * cellSize;
         int targetCenterX = targetLeft + cellSize/2;
         int targetCenterY = targetTop + cellSize/2;
         
         // Создаем пульсирующий эффект для цели
-        float pulseScale = 1.0f + 0.2f * (float) Math.sin(System.nanoTime() * 0.0000005);
+        float pulseScale = targetPulse.scale(frameTime);
         canvas.drawCircle(targetCenterX, targetCenterY, (cellSize/3) * pulseScale, targetPaint);
         
-        // Рисуем игрока с анимацией
-        float playerCenterX = playerPos.x * cellSize + cellSize/2;
-        float playerCenterY = playerPos.y * cellSize + cellSize/2;
-        
-        if (isAnimating) {
-            playerCenterX += playerAnimationX;
-            playerCenterY += playerAnimationY;
+        // Остальные цели и шары режима нескольких шаров; нулевые нарисованы выше и ниже
+        int pieces = level.getPieceCount();
+        for (int i = 1; i < pieces; i++) {
+            int target = level.pieceTargets[i];
+            canvas.drawCircle(level.table.cellX(target) * cellSize + cellSize/2,
+                    level.table.cellY(target) * cellSize + cellSize/2, (cellSize/3) * pulseScale, targetPaint);
+        }
+        for (int i = 1; i < pieces; i++) {
+            float pieceX = (level.table.cellX(play.getCell(i)) + pieceFromDx[i] * slideRemaining) * cellSize + cellSize/2;
+            float pieceY = (level.table.cellY(play.getCell(i)) + pieceFromDy[i] * slideRemaining) * cellSize + cellSize/2;
+            canvas.drawCircle(pieceX + 2, pieceY + 2, cellSize/3, shadowPaint);
+            canvas.drawCircle(pieceX, pieceY, cellSize/3, playerPaint);
         }
         
         // Добавляем тень для игрока
-        Paint shadowPaint = new Paint(playerPaint);
-        shadowPaint.setColor(Color.parseColor("#80000000"));
         canvas.drawCircle(playerCenterX + 2, playerCenterY + 2, cellSize/3, shadowPaint);
         
         canvas.drawCircle(playerCenterX, playerCenterY, cellSize/3, playerPaint);
         
+        canvas.restore();
+        
         // Рисуем индикатор ходов
         if (movesLeft <= 3 && movesLeft > 0) {
-            Paint warningPaint = new Paint();
-            warningPaint.setColor(Color.parseColor("#F39C12"));
             warningPaint.setTextSize(cellSize/2);
-            warningPaint.setTextAlign(Paint.Align.CENTER);
             canvas.drawText("⚠", getWidth()/2, cellSize, warningPaint);
         }
 
@@ -249,391 +515,382 @@ public class GameView extends View {
     }
     
     private void movePlayer(Direction direction) {
-        if (isPreparingLevel || isAnimating) {
+        if (isPreparingLevel || play.getLevel() == null || playerSlide.isRunning(System.nanoTime())) {
+            return;
+        }
+        // Если ни один шар не сдвинулся, ход не засчитывается
+        if (!play.move(direction)) {
             return;
         }
-        Point newPos = calculateNewPosition(playerPos, direction);
+        sessionRecorder.onMove(direction);
+        SlideTable table = play.getLevel().table;
+        for (int i = 0; i < play.getPieceCount(); i++) {
+            pieceFromDx[i] = table.cellX(play.getPreviousCell(i)) - table.cellX(play.getCell(i));
+            pieceFromDy[i] = table.cellY(play.getPreviousCell(i)) - table.cellY(play.getCell(i));
+        }
+        // Запускаем анимацию движения
+        Point newPos = new Point(table.cellX(play.getCell(0)), table.cellY(play.getCell(0)));
+        animatePlayerMovement(playerPos, newPos);
+        playerPos = newPos;
+        movesLeft = play.getMovesLeft();
+        
+        if (gameListener != null) {
+            gameListener.onMoveMade(movesLeft);
+        }
         
-        // Проверяем, изменилась ли позиция (если нет, то ход не засчитывается)
-        if (!newPos.equals(playerPos)) {
-            // Запускаем анимацию движения
-            animatePlayerMovement(playerPos, newPos);
-            
-            playerPos = newPos;
-            movesLeft--;
-            
+        // Проверяем, достиг ли игрок цели
+        LevelPlay.Outcome outcome = play.getOutcome();
+        if (outcome == LevelPlay.Outcome.COMPLETED) {
+            gameCompleted = true;
+            setPulseRunning(false);
+            finishRecording(outcome);
             if (gameListener != null) {
-                gameListener.onMoveMade(movesLeft);
+                gameListener.onLevelCompleted();
             }
-            
-            // Проверяем, достиг ли игрок цели
-            if (playerPos.equals(targetPos)) {
-                gameCompleted = true;
-                if (gameListener != null) {
-                    gameListener.onLevelCompleted();
-                }
-            } else if (movesLeft <= 0) {
-                gameOver = true;
-                if (gameListener != null) {
-                    gameListener.onGameOver();
-                }
+        } else if (outcome == LevelPlay.Outcome.GAME_OVER) {
+            gameOver = true;
+            setPulseRunning(false);
+            finishRecording(outcome);
+            if (gameListener != null) {
+                gameListener.onGameOver();
             }
         }
     }
     
+    // Закрывает запись уровня; брошенный недоигранным уровень пишется с итогом PLAYING
+    private void finishRecording(LevelPlay.Outcome outcome) {
+        SessionLog log = sessionRecorder.finish(outcome, play.getMovesLeft());
+        if (log != null && sessionJournal != null) {
+            sessionJournal.append(log);
+        }
+    }
+    
     private void animatePlayerMovement(Point from, Point to) {
-        isAnimating = true;
-        animationStartPos = new Point(from);
-        animationEndPos = new Point(to);
-        animationStartTime = System.currentTimeMillis();
+        // Смещение в клетках, которое шарик проходит за время дорожки
+        playerSlide.fromDx = from.x - to.x;
+        playerSlide.fromDy = from.y - to.y;
+        animationClock.start(playerSlide, SLIDE_DURATION_NANOS);
+    }
+    
+    public void startLevel(int level, int maxMoves) {
+        Tracer.i("startLevel level=%d maxMoves=%d", level, maxMoves);
+        // Всё, что ещё строится для прошлого запуска, становится устаревшим
+        cancelLevelLoading();
+        currentLevel = level;
+        currentMaxMoves = maxMoves;
+        gameCompleted = false;
+        gameOver = false;
+        final long levelSeed = LevelSeeds.forLevel(sessionSeed, level);
+        Tracer.d("levelSeed level=%d session=%d seed=%d", level, sessionSeed, levelSeed);
+        
+        if (pieceCount > 1) {
+            startMultiPieceLevel(level, maxMoves, levelSeed);
+        } else {
+            startSingleBallLevel(level, maxMoves, levelSeed);
+        }
+    }
+    
+    private void startSingleBallLevel(final int level, final int maxMoves, final long levelSeed) {
+        // Уровень уже построен заранее — подменяем поле сразу, без экрана загрузки
+        Level prefetched = prefetcher.poll(level, maxMoves, gridWidth, gridHeight, levelSeed);
+        if (prefetched != null) {
+            Tracer.d("prefetch hit level=%d hits=%d misses=%d", level, prefetcher.getHits(),
+                    prefetcher.getMisses());
+            applyLevel(prefetched);
+            return;
+        }
+        final Future<Level> pending = prefetcher.takePending(level, maxMoves, gridWidth, gridHeight, levelSeed);
+        if (pending != null) {
+            Tracer.d("prefetch pending level=%d waits=%d", level, prefetcher.getPendingWaits());
+        } else {
+            Tracer.d("prefetch miss level=%d hits=%d misses=%d", level, prefetcher.getHits(),
+                    prefetcher.getMisses());
+        }
+        
+        isPreparingLevel = true;
+        transitionUntilNanos = Long.MAX_VALUE;
+        setPulseRunning(false);
+        invalidate();
         
-        // Запускаем анимацию с плавным ускорением и торможением
-        new Thread(new Runnable() {
+        final int token = levelToken.get();
+        final BooleanSupplier superseded = () -> levelToken.get() != token;
+        final long refillSeed = refillSeed(level);
+        // Размер поля фиксируется здесь: setGridSize может сменить его, пока задача ждёт в очереди
+        final int width = gridWidth;
+        final int height = gridHeight;
+        loadJob = loadExecutor.submit(new Runnable() {
             @Override
             public void run() {
-                long startTime = System.currentTimeMillis();
-                long duration = 300; // 300ms для анимации
-                
-                float startX = from.x * cellSize + cellSize/2;
-                float startY = from.y * cellSize + cellSize/2;
-                float endX = to.x * cellSize + cellSize/2;
-                float endY = to.y * cellSize + cellSize/2;
-                
-                while (System.currentTimeMillis() - startTime < duration) {
-                    long elapsed = System.currentTimeMillis() - startTime;
-                    float progress = (float) elapsed / duration;
-                    
-                    // Применяем easing функцию (ease-in-out)
-                    float easedProgress = easeInOutCubic(progress);
-                    
-                    float currentX = startX + (endX - startX) * easedProgress;
-                    float currentY = startY + (endY - startY) * easedProgress;
-                    
-                    playerAnimationX = currentX - (to.x * cellSize + cellSize/2);
-                    playerAnimationY = currentY - (to.y * cellSize + cellSize/2);
-                    
-                    post(new Runnable() {
-                        @Override
-                        public void run() {
-                            invalidate();
+                // Кандидаты строятся параллельно на приватных полях рабочих потоков,
+                // готовый неизменяемый снимок публикуется в UI-потоке ниже
+                Level generated = null;
+                try {
+                    // Холодный старт: берём уровень, сохранённый на диске, и пополняем запас в фоне.
+                    // Устаревшая загрузка запас не тратит: её уровень всё равно будет выброшен
+                    LevelStore store = levelStore;
+                    if (store != null && !superseded.getAsBoolean()) {
+                        generated = store.take(level, maxMoves, width, height);
+                    }
+                    if (generated != null) {
+                        Tracer.d("store hit level=%d seed=%d", level, generated.seed);
+                        if (pending != null) {
+                            pending.cancel(true);
+                        }
+                        levelRefiller.refill(level, maxMoves, width, height, refillSeed);
+                    } else if (pending != null) {
+                        // Предзагрузка уже идёт — дожидаемся её, а не строим уровень второй раз
+                        try {
+                            generated = pending.get();
+                        } catch (ExecutionException | CancellationException e) {
+                            generated = null;
                         }
-                    });
-                    
-                    try {
-                        Thread.sleep(16); // ~60 FPS
-                    } catch (InterruptedException e) {
-                        e.printStackTrace();
                     }
+                    if (generated == null) {
+                        generated = levelGenerator.generate(level, maxMoves, width, height,
+                                levelSeed, superseded);
+                    }
+                } catch (InterruptedException | CancellationException e) {
+                    if (pending != null) {
+                        pending.cancel(true);
+                    }
+                    Tracer.d("level %d load cancelled", level);
+                    return;
                 }
-                
-                isAnimating = false;
-                playerAnimationX = 0;
-                playerAnimationY = 0;
-                
+                final Level ready = generated;
                 post(new Runnable() {
                     @Override
                     public void run() {
-                        invalidate();
+                        // Пока уровень строился, игрок мог уйти в меню или запустить другой
+                        if (superseded.getAsBoolean()) {
+                            Tracer.d("drop stale level %d", level);
+                            return;
+                        }
+                        applyLevel(ready);
                     }
                 });
             }
-        }).start();
-    }
-    
-    private float easeInOutCubic(float t) {
-        if (t < 0.5f) {
-            return 4 * t * t * t;
-        } else {
-            float f = 2 * t - 2;
-            return 1 + f * f * f / 2;
-        }
-    }
-    
-    private Point calculateNewPosition(Point currentPos, Direction direction) {
-        Point newPos = new Point(currentPos);
-        
-        // Двигаемся в направлении до столкновения со стеной
-        while (true) {
-            Point nextPos = new Point(newPos);
-            switch (direction) {
-                case UP:
-                    nextPos.y--;
-                    break;
-                case DOWN:
-                    nextPos.y++;
-                    break;
-                case LEFT:
-                    nextPos.x--;
-                    break;
-                case RIGHT:
-                    nextPos.x++;
-                    break;
-            }
-            
-            if (isValidPosition(nextPos)) {
-                newPos = nextPos;
-            } else {
-                break;
-            }
-        }
-        
-        return newPos;
-    }
-    
-    private boolean isValidPosition(Point pos) {
-        return pos.x >= 0 && pos.x < gridWidth && 
-               pos.y >= 0 && pos.y < gridHeight && 
-               !walls[pos.y][pos.x];
+        });
     }
     
-    public void startLevel(int level, int maxMoves) {
-        Log.d("PFPUZ", "GameView.startLevel level=" + level + " maxMovesParam=" + maxMoves);
-        currentLevel = level;
-        gameCompleted = false;
-        gameOver = false;
+    // Уровни с несколькими шарами не предзагружаются и не хранятся на диске:
+    // поиск по совместным положениям ограничен числом состояний и строится на месте.
+    // Если расстановка не нашлась, тот же уровень строится для одного шара
+    private void startMultiPieceLevel(final int level, final int maxMoves, final long levelSeed) {
         isPreparingLevel = true;
+        transitionUntilNanos = Long.MAX_VALUE;
+        setPulseRunning(false);
         invalidate();
         
-        new Thread(new Runnable() {
+        final int token = levelToken.get();
+        final int pieces = pieceCount;
+        final int width = gridWidth;
+        final int height = gridHeight;
+        loadJob = loadExecutor.submit(new Runnable() {
             @Override
             public void run() {
-                long startTs = System.currentTimeMillis();
-                int attempts = 0;
-                int localMinMoves;
-                int localMovesLeft = maxMoves;
-                boolean ok = false;
-                do {
-                    // Генерация и расчёт
-                    generateLevel(level);
-                    playerPos = new Point(1, 1);
-                    targetPos = new Point(gridWidth - 2, gridHeight - 2);
-                    localMinMoves = calculateMinMoves();
-                    if (localMinMoves >= 3) {
-                        ok = true;
-                        localMovesLeft = Math.max(maxMoves, localMinMoves + 2);
-                        break;
-                    }
-                    attempts++;
-                } while ((System.currentTimeMillis() - startTs) < 700 && attempts < 60);
-                final int resultMin = ok ? localMinMoves : 4; // подстраховка
-                final int resultMoves = ok ? localMovesLeft : Math.max(maxMoves, 6);
+                if (multiPieceGenerator == null || multiPieceGenerator.getGridWidth() != width
+                        || multiPieceGenerator.getGridHeight() != height) {
+                    multiPieceGenerator = new MultiPieceGenerator(width, height);
+                }
+                Level generated;
+                try {
+                    generated = multiPieceGenerator.generate(level, pieces, maxMoves, levelSeed);
+                } catch (IllegalStateException e) {
+                    // Ни одна расстановка не сдвинулась на нужную глубину: уровень
+                    // играется одним шаром, а не висит на экране загрузки
+                    Tracer.w("multi-piece level %d failed, falling back to one ball", level);
+                    generated = null;
+                }
+                final Level ready = generated;
                 post(new Runnable() {
                     @Override
                     public void run() {
-                        minMovesToTarget = resultMin;
-                        movesLeft = resultMoves;
-                        isPreparingLevel = false;
-                        Log.d("PFPUZ", "levelReady minMoves=" + minMovesToTarget + " movesLeft=" + movesLeft);
-                        // Сообщаем UI фактическое число ходов до первого хода
-                        if (gameListener != null) {
-                            gameListener.onMoveMade(movesLeft);
+                        if (levelToken.get() != token) {
+                            Tracer.d("drop stale level %d", level);
+                            return;
                         }
-                        invalidate();
+                        if (ready == null) {
+                            if (gameListener != null) {
+                                gameListener.onPieceFallback(level);
+                            }
+                            startSingleBallLevel(level, maxMoves, levelSeed);
+                            return;
+                        }
+                        applyLevel(ready);
                     }
                 });
             }
-        }).start();
+        });
     }
     
-    private void generateLevel(int level) {
-        // Очищаем лабиринт
-        for (int y = 0; y < gridHeight; y++) {
-            for (int x = 0; x < gridWidth; x++) {
-                walls[y][x] = false;
-            }
+    // Отзывает текущую загрузку: её результат больше никогда не попадёт на поле
+    public void cancelLevelLoading() {
+        // Уровень, брошенный посреди игры, тоже попадает в журнал
+        finishRecording(LevelPlay.Outcome.PLAYING);
+        levelToken.incrementAndGet();
+        if (loadJob != null) {
+            loadJob.cancel(true);
+            loadJob = null;
         }
-        
-        // Обычные края в одну клетку чтобы не выглядели толстыми
-        for (int x = 0; x < gridWidth; x++) {
-            walls[0][x] = true; // Верхняя граница
-            walls[gridHeight - 1][x] = true; // Нижняя граница
+        isPreparingLevel = false;
+        transitionUntilNanos = 0;
+    }
+    
+    // Останавливает все фоновые потоки генерации; после этого вид не используется
+    public void release() {
+        cancelLevelLoading();
+        prefetcher.shutdown();
+        if (levelRefiller != null) {
+            levelRefiller.shutdown();
         }
-        for (int y = 0; y < gridHeight; y++) {
-            walls[y][0] = true; // Левая граница
-            walls[y][gridWidth - 1] = true; // Правая граница
+        levelGenerator.shutdown();
+        if (sessionJournal != null) {
+            sessionJournal.close();
+            sessionJournal = null;
         }
-        
-        // Генерируем специальные паттерны для разных уровней
-        generateLevelPattern(level);
+        // Хранилище закрывается в том же потоке, где открывалось, после отменённой загрузки
+        loadExecutor.execute(this::closeLevelStore);
+        loadExecutor.shutdown();
     }
     
-    private void generateLevelPattern(int level) {
-        // Для уровней 1–8 используем рандомную генерацию с анти-двухходовым контролем
-        if (level <= 8) {
-            generateRandomWithAntiTwoMove(level);
-            ensureMinMoves(Math.min(4 + level / 2, 9), 120);
+    private void closeLevelStore() {
+        LevelStore store = levelStore;
+        levelStore = null;
+        if (store != null) {
+            try {
+                store.close();
+            } catch (IOException e) {
+                Log.w("PFPUZ", "level store close failed", e);
+            }
+        }
+    }
+    
+    // Ставит уровни в очередь фоновой генерации, пока игрок занят текущим
+    public void prefetchLevel(int level, int maxMoves) {
+        if (pieceCount > 1) {
             return;
         }
-        // 9+ — смешанный режим (пока оставим случайный с усилением сложности)
-        generateRandomLevel(level);
-        ensureMinMoves(8, 150);
+        prefetcher.prefetch(level, maxMoves, gridWidth, gridHeight, LevelSeeds.forLevel(sessionSeed, level));
+        LevelRefiller refiller = levelRefiller;
+        if (refiller != null) {
+            refiller.refill(level, maxMoves, gridWidth, gridHeight, refillSeed(level));
+        }
     }
-
-    private void generateRandomWithAntiTwoMove(int level) {
-        int attempts = 0;
-        do {
-            // базовая случайная генерация
-            generateRandomLevel(level);
-            // блокируем прямые коридоры по краям (решение за 2 хода Right+Down или Down+Right)
-            placeEdgeBlockers();
-            minMovesToTarget = calculateMinMoves();
-            attempts++;
-        } while ((minMovesToTarget < 4 || minMovesToTarget == -1) && attempts < 40);
+    
+    // Зерно пополнения хранилища выводится из зерна партии, как и зёрна уровней,
+    // но из своего потока: уровень N самой партии уже строит предзагрузка
+    private long refillSeed(int level) {
+        return LevelSeeds.forLevel(LevelSeeds.mix64(sessionSeed), level);
     }
-
-    private void placeEdgeBlockers() {
-        // Не ставим на старт/финиш
-        // блок по верхней кромке между стартом и правым краем
-        walls[1][Math.max(2, gridWidth / 2)] = true;
-        // блок по левой кромке между стартом и нижним краем
-        walls[Math.max(2, gridHeight / 2)][1] = true;
-        // блок по правой кромке между верхом и целью
-        walls[Math.max(2, gridHeight / 2)][gridWidth - 2] = true;
-        // блок по нижней кромке между левым и целью
-        walls[gridHeight - 2][Math.max(2, gridWidth / 2)] = true;
-        // Гарантируем, что рядом со стартом/целью свободно
-        walls[1][1] = false;
-        walls[gridHeight - 2][gridWidth - 2] = false;
-        walls[1][2] = false; walls[2][1] = false;
-        walls[gridHeight - 2][gridWidth - 3] = false; walls[gridHeight - 3][gridWidth - 2] = false;
-    }
-    
-    private void generateSimpleLevel() {
-        // Минимальный набор препятствий, чтобы путь требовал 4+ ходов, но был очевиден
-        // Очищаем внутреннюю область
-        for (int y = 1; y < gridHeight - 1; y++) {
-            for (int x = 1; x < gridWidth - 1; x++) {
-                walls[y][x] = false;
-            }
+    
+    private void openLevelStore(File storeFile) {
+        try {
+            LevelStore store = LevelStore.open(storeFile);
+            levelRefiller = new LevelRefiller(store, levelGenerator);
+            levelStore = store;
+        } catch (IOException e) {
+            // Без хранилища игра работает как раньше, просто генерирует каждый уровень
+            Log.w("PFPUZ", "level store unavailable", e);
+            levelStore = null;
+            levelRefiller = null;
         }
-        // Несколько стратегических блокеров у краёв, чтобы исключить маршрут в 2 хода
-        walls[1][gridWidth - 3] = true; // блокируем длинный ход по верхнему ряду
-        walls[gridHeight - 3][gridWidth - 2] = true; // блокируем прямой спуск у правого края
-        // Небольшая перегородка возле старта, не перекрывающая путь
-        walls[2][3] = true;
-        // Гарантируем старт/финиш свободны
-        walls[1][1] = false;
-        walls[gridHeight - 2][gridWidth - 2] = false;
-        // Дополнительно: если вдруг блокеры создали тупик, освобождаем рядом клетки
-        walls[1][2] = false;
-        walls[2][1] = false;
     }
     
-    private void generateCrossLevel() {
-        // Уровень с крестообразным препятствием
-        for (int i = 2; i < 8; i++) {
-            walls[5][i] = true; // Горизонтальная линия
-            walls[i][5] = true; // Вертикальная линия
-        }
+    // Новая партия со своим зерном; уровни прежней партии выбрасываются
+    public void startNewSession(long seed) {
+        sessionSeed = seed;
+        prefetcher.clear();
+        Tracer.i("startNewSession seed=%d", seed);
     }
     
-    private void generateSpiralLevel() {
-        // Спиральный лабиринт
-        int centerX = gridWidth / 2;
-        int centerY = gridHeight / 2;
-        
-        for (int i = 0; i < 3; i++) {
-            walls[centerY - 1][centerX - 1 + i] = true;
-            walls[centerY + 1][centerX - 1 + i] = true;
-            walls[centerY - 1 + i][centerX - 1] = true;
-            walls[centerY - 1 + i][centerX + 1] = true;
-        }
+    public long getSessionSeed() {
+        return sessionSeed;
     }
     
-    private void generateMazeLevel() {
-        // Создаем лабиринт с помощью простого алгоритма
-        for (int y = 2; y < gridHeight - 2; y += 2) {
-            for (int x = 2; x < gridWidth - 2; x += 2) {
-                walls[y][x] = true;
-                
-                // Добавляем случайные соединения
-                if (Math.random() < 0.5 && x + 1 < gridWidth - 1) {
-                    walls[y][x + 1] = true;
-                }
-                if (Math.random() < 0.5 && y + 1 < gridHeight - 1) {
-                    walls[y + 1][x] = true;
-                }
-            }
+    public int getPrefetchHits() {
+        return prefetcher.getHits();
+    }
+    
+    public int getPrefetchMisses() {
+        return prefetcher.getMisses();
+    }
+    
+    public int getPrefetchPendingWaits() {
+        return prefetcher.getPendingWaits();
+    }
+    
+    // Размер поля для уровней, которые будут построены дальше
+    public void setGridSize(int width, int height) {
+        if (width == gridWidth && height == gridHeight) {
+            return;
         }
+        gridWidth = width;
+        gridHeight = height;
+        // Заготовленные уровни старого размера больше не подойдут
+        prefetcher.clear();
+        Tracer.i("setGridSize %dx%d", width, height);
     }
     
-    private void generateRandomLevel(int level) {
-        int obstacleCount = Math.min(level * 3, 20);
-        
-        for (int i = 0; i < obstacleCount; i++) {
-            int x = (int) (Math.random() * (gridWidth - 2)) + 1;
-            int y = (int) (Math.random() * (gridHeight - 2)) + 1;
-            
-            // Не ставим препятствие на стартовую или конечную позицию
-            if ((x == 1 && y == 1) || (x == gridWidth - 2 && y == gridHeight - 2)) {
-                continue;
-            }
-            
-            walls[y][x] = true;
+    // Число шаров для следующих уровней; 1 — обычная игра
+    public void setPieceCount(int count) {
+        count = Math.max(1, Math.min(PieceStates.MAX_PIECES, count));
+        if (count == pieceCount) {
+            return;
         }
+        pieceCount = count;
+        prefetcher.clear();
+        Tracer.i("setPieceCount %d", count);
     }
-
-    // Повышает минимальное число ходов до порога, добавляя перегородки, сохраняя проходимость
-    private void ensureMinMoves(int minRequiredMoves, int maxAttempts) {
-        int attempts = 0;
-        while (attempts < maxAttempts) {
-            minMovesToTarget = calculateMinMoves();
-            if (minMovesToTarget >= minRequiredMoves && minMovesToTarget != -1) {
-                return;
-            }
-            // Добавляем небольшую перегородку в случайном месте, не перекрывая старт/финиш
-            int x = (int) (Math.random() * (gridWidth - 4)) + 2;
-            int y = (int) (Math.random() * (gridHeight - 4)) + 2;
-            if (!walls[y][x] && !(x == 1 && y == 1) && !(x == gridWidth - 2 && y == gridHeight - 2)) {
-                walls[y][x] = true;
-            }
-            attempts++;
+    
+    private void applyLevel(Level ready) {
+        activeLevel.set(ready);
+        updateCellSize(getWidth(), getHeight());
+        invalidateBoardLayer();
+        animationClock.stop(playerSlide);
+        playerPos = new Point(ready.startX, ready.startY);
+        play.reset(ready);
+        sessionRecorder.begin(ready, currentLevel, currentMaxMoves);
+        for (int i = 0; i < ready.getPieceCount(); i++) {
+            pieceFromDx[i] = 0;
+            pieceFromDy[i] = 0;
+        }
+        movesLeft = ready.movesLeft;
+        isPreparingLevel = false;
+        transitionUntilNanos = System.nanoTime() + TRANSITION_TAIL_NANOS;
+        setPulseRunning(true);
+        Tracer.i("levelReady minMoves=%d movesLeft=%d", ready.minMoves, movesLeft);
+        // Сообщаем UI фактическое число ходов до первого хода
+        if (gameListener != null) {
+            gameListener.onMoveMade(movesLeft);
         }
-        // финальная проверка
-        minMovesToTarget = calculateMinMoves();
+        invalidate();
     }
     
-    private int calculateMinMoves() {
-        // Инициализируем массив посещенных позиций
-        visited = new boolean[gridHeight][gridWidth];
-        
-        // Используем BFS для поиска кратчайшего пути
-        Queue<PathNode> queue = new LinkedList<>();
-        queue.add(new PathNode(playerPos, 0));
-        visited[playerPos.y][playerPos.x] = true;
-        
-        while (!queue.isEmpty()) {
-            PathNode current = queue.poll();
-            
-            // Если достигли цели
-            if (current.position.equals(targetPos)) {
-                return current.moves;
-            }
-            
-            // Проверяем все 4 направления
-            for (Direction direction : Direction.values()) {
-                Point newPos = calculateNewPosition(current.position, direction);
-                
-                // Если позиция валидна и не посещена
-                if (isValidPosition(newPos) && !visited[newPos.y][newPos.x]) {
-                    visited[newPos.y][newPos.x] = true;
-                    queue.add(new PathNode(newPos, current.moves + 1));
-                }
-            }
+    // Цель пульсирует, только пока уровень можно играть: во время загрузки и после
+    // победы или проигрыша часы не запрашивают кадры, и вид стоит без перерисовок
+    private void setPulseRunning(boolean running) {
+        if (running == targetPulse.active) {
+            return;
+        }
+        if (running) {
+            animationClock.start(targetPulse, 0);
+        } else {
+            animationClock.stop(targetPulse);
+            invalidate();
         }
-        
-        // Если путь не найден
-        return -1;
     }
     
-    private static class PathNode {
-        Point position;
-        int moves;
-        
-        PathNode(Point position, int moves) {
-            this.position = position;
-            this.moves = moves;
+    // Следующий оптимальный ход из текущей позиции или null, если подсказать нечего.
+    // Путь решается один раз на уровень и заново только после схода с него.
+    public Direction getHint() {
+        if (isPreparingLevel || gameCompleted || gameOver) {
+            return null;
+        }
+        // Решатель подсказок знает только один шар
+        if (activeLevel.get().getPieceCount() > 1) {
+            return null;
         }
+        return hintCache.nextMove(activeLevel.get(), playerPos.x, playerPos.y);
     }
     
     public void setGameListener(GameListener listener) {
@@ -649,6 +906,7 @@ public class GameView extends View {
         pathPaint.setColor(isDarkTheme ? Color.parseColor("#2F3240") : Color.parseColor("#E8F5E8"));
         borderPaint.setColor(isDarkTheme ? Color.parseColor("#2A2E3A") : Color.parseColor("#C8E6C9"));
         setBackgroundColor(isDarkTheme ? Color.parseColor("#1E1E1E") : Color.parseColor("#FFFFFF"));
+        invalidateBoardLayer();
         
         // Перерисовываем
         invalidate();
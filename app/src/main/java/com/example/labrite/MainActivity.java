@@ -4,6 +4,7 @@ import android.app.AlertDialog;
 import android.content.Context;
 import android.content.Intent;
 import android.content.SharedPreferences;
+import android.content.pm.ApplicationInfo;
 import android.graphics.Color;
 import android.media.AudioAttributes;
 import android.media.AudioManager;
@@ -14,13 +15,13 @@ import android.os.Looper;
 import android.os.VibrationEffect;
 import android.os.Vibrator;
 import android.view.Gravity;
-import android.util.Log;
 import android.view.View;
 import android.widget.Button;
 import android.widget.LinearLayout;
 import android.widget.TextView;
 import android.widget.Toast;
 import androidx.appcompat.app.AppCompatActivity;
+import java.util.SplittableRandom;
 
 public class MainActivity extends AppCompatActivity {
     
@@ -57,6 +58,9 @@ public class MainActivity extends AppCompatActivity {
     private SoundPool soundPool;
     private int moveSoundId, winSoundId, loseSoundId;
     
+    // Уровень трассировки по умолчанию уже выставлен в этом процессе
+    private static boolean traceLevelChosen;
+    
     // Обработчик для автоматического перехода
     private Handler autoNextHandler = new Handler(Looper.getMainLooper());
 
@@ -64,13 +68,23 @@ public class MainActivity extends AppCompatActivity {
     protected void onCreate(Bundle savedInstanceState) {
         super.onCreate(savedInstanceState);
         
+        // Трассировка: секции в системный трейс, в отладочной сборке журнал подробнее.
+        // Уровень по умолчанию ставится раз на процесс: пересоздание активности
+        // не сбрасывает уровень, выбранный на экране диагностики
+        Tracer.setSectionSink(new AndroidTraceSink());
+        if (!traceLevelChosen) {
+            traceLevelChosen = true;
+            boolean debuggable = (getApplicationInfo().flags & ApplicationInfo.FLAG_DEBUGGABLE) != 0;
+            Tracer.setLevel(debuggable ? Tracer.DEBUG : Tracer.INFO);
+        }
+        
         // Применяем тему перед установкой layout
         applyTheme();
         
         // Всегда используем основной layout, цвета будем менять динамически
         setContentView(R.layout.activity_main);
         
-        Log.d("PFPUZ", "MainActivity.onCreate");
+        Tracer.d("MainActivity.onCreate");
         
         // Инициализируем SharedPreferences
         prefs = getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
@@ -183,6 +197,12 @@ public class MainActivity extends AppCompatActivity {
                 playLoseEffect();
                 showGameOver();
             }
+            
+            @Override
+            public void onPieceFallback(int level) {
+                Toast.makeText(MainActivity.this, "Уровень " + level + " не удалось построить для нескольких шаров, играем одним",
+                        Toast.LENGTH_LONG).show();
+            }
         });
     }
     
@@ -194,6 +214,15 @@ public class MainActivity extends AppCompatActivity {
         
         // Обновляем рекорд в меню
         menuHighScoreText.setText("Рекорд: " + highScore);
+        
+        // Уровни прежней партии больше не нужны: отзываем недостроенный,
+        // заводим новое зерно и прогреваем первый уровень, пока открыто меню
+        gameView.cancelLevelLoading();
+        int gridSize = SettingsActivity.getGridSize(this);
+        gameView.setGridSize(gridSize, gridSize);
+        gameView.setPieceCount(SettingsActivity.getPieceCount(this));
+        gameView.startNewSession(new SplittableRandom().nextLong());
+        gameView.prefetchLevel(1, getMaxMovesForLevel(1));
     }
     
     private void startGame() {
@@ -209,10 +238,17 @@ public class MainActivity extends AppCompatActivity {
     }
     
     private void startLevel(int level) {
-        Log.d("PFPUZ", "startLevel level=" + level);
+        Tracer.d("MainActivity.startLevel level=%d", level);
         maxMoves = getMaxMovesForLevel(level);
-        gameView.startLevel(level, maxMoves);
+        // Сначала подписи, потом уровень: готовый уровень из предзагрузки
+        // сразу сообщает фактическое число ходов через onMoveMade
         updateUI();
+        gameView.startLevel(level, maxMoves);
+        
+        // Пока игрок проходит этот уровень, в фоне строятся следующие
+        for (int i = 1; i <= GameView.PREFETCH_DEPTH; i++) {
+            gameView.prefetchLevel(level + i, getMaxMovesForLevel(level + i));
+        }
     }
     
     private int getMaxMovesForLevel(int level) {
@@ -321,7 +357,7 @@ public class MainActivity extends AppCompatActivity {
     private void loadHighScore() {
         highScore = prefs.getInt(KEY_HIGH_SCORE, 0);
         maxLevelReached = prefs.getInt(KEY_MAX_LEVEL, 0);
-        Log.d("PFPUZ", "loadHighScore: " + highScore + " maxLevel: " + maxLevelReached);
+        Tracer.d("loadHighScore %d maxLevel %d", highScore, maxLevelReached);
     }
     
     private void updateHighScore() {
@@ -331,7 +367,7 @@ public class MainActivity extends AppCompatActivity {
                  .putInt(KEY_HIGH_SCORE, highScore)
                  .putInt(KEY_MAX_LEVEL, maxLevelReached)
                  .apply();
-            Log.d("PFPUZ", "updateHighScore: " + highScore);
+            Tracer.i("updateHighScore %d", highScore);
         }
     }
     
@@ -358,6 +394,10 @@ public class MainActivity extends AppCompatActivity {
                 // Тема изменилась, обновляем UI
                 updateTheme();
             }
+            if (data != null && data.getBooleanExtra("grid_size_changed", false)) {
+                // Размер поля или число шаров изменились — заново готовим первый уровень
+                showMenu();
+            }
         }
     }
     
@@ -447,11 +487,15 @@ public class MainActivity extends AppCompatActivity {
     @Override
     protected void onDestroy() {
         super.onDestroy();
+        Tracer.d("MainActivity.onDestroy");
         if (prefs != null && preferenceChangeListener != null) {
             prefs.unregisterOnSharedPreferenceChangeListener(preferenceChangeListener);
         }
         if (soundPool != null) {
             soundPool.release();
         }
+        if (gameView != null) {
+            gameView.release();
+        }
     }
 }
\ No newline at end of file
@@ -17,6 +17,15 @@ public class SettingsActivity extends AppCompatActivity {
     
     private Switch themeSwitch;
     private Switch vibrationSwitch;
+    private TextView gridSizeText;
+    private LinearLayout gridSizeLayout;
+    private TextView pieceCountText;
+    private LinearLayout pieceCountLayout;
+    private Switch frameOverlaySwitch;
+    private TextView frameOverlayText;
+    private LinearLayout frameOverlayLayout;
+    private TextView diagnosticsText;
+    private LinearLayout diagnosticsLayout;
     private Button backButton;
     private TextView themeText;
     private TextView vibrationText;
@@ -26,9 +35,20 @@ public class SettingsActivity extends AppCompatActivity {
     private LinearLayout descriptionLayout;
     
     private SharedPreferences prefs;
+    // Общий результат для MainActivity: изменения темы и размера поля не затирают друг друга
+    private final Intent resultIntent = new Intent();
     private static final String PREFS_NAME = "LabriteGamePrefs";
     public static final String KEY_THEME = "theme";
     private static final String KEY_VIBRATION = "vibration";
+    public static final String KEY_GRID_SIZE = "grid_size";
+    private static final String KEY_PIECE_COUNT = "piece_count";
+    private static final String KEY_FRAME_OVERLAY = "frame_overlay";
+    
+    // Доступные размеры поля; на больших полях экран прокручивается за игроком
+    public static final int DEFAULT_GRID_SIZE = 10;
+    private static final int[] GRID_SIZES = {10, 16, 32, 64, 128, 256};
+    // Шары сдвигаются одним свайпом все вместе; 1 — обычная игра
+    private static final int MAX_PIECE_COUNT = 4;
     
     @Override
     protected void onCreate(Bundle savedInstanceState) {
@@ -61,6 +81,15 @@ public class SettingsActivity extends AppCompatActivity {
         themeLayout = findViewById(R.id.themeLayout);
         vibrationLayout = findViewById(R.id.vibrationLayout);
         descriptionLayout = findViewById(R.id.descriptionLayout);
+        gridSizeText = findViewById(R.id.gridSizeText);
+        gridSizeLayout = findViewById(R.id.gridSizeLayout);
+        pieceCountText = findViewById(R.id.pieceCountText);
+        pieceCountLayout = findViewById(R.id.pieceCountLayout);
+        frameOverlaySwitch = findViewById(R.id.frameOverlaySwitch);
+        frameOverlayText = findViewById(R.id.frameOverlayText);
+        frameOverlayLayout = findViewById(R.id.frameOverlayLayout);
+        diagnosticsText = findViewById(R.id.diagnosticsText);
+        diagnosticsLayout = findViewById(R.id.diagnosticsLayout);
     }
     
     private void loadSettings() {
@@ -72,6 +101,12 @@ public class SettingsActivity extends AppCompatActivity {
         
         updateThemeText(isDarkTheme);
         updateVibrationText(vibrationEnabled);
+        updateGridSizeText(getGridSize(this));
+        updatePieceCountText(getPieceCount(this));
+        
+        boolean frameOverlay = prefs.getBoolean(KEY_FRAME_OVERLAY, false);
+        frameOverlaySwitch.setChecked(frameOverlay);
+        updateFrameOverlayText(frameOverlay);
     }
     
     private void setupListeners() {
@@ -99,6 +134,52 @@ public class SettingsActivity extends AppCompatActivity {
                 updateVibrationText(isChecked);
             }
         });
+        
+        gridSizeLayout.setOnClickListener(new View.OnClickListener() {
+            @Override
+            public void onClick(View v) {
+                // Переключаем размер по кругу
+                int next = nextGridSize(getGridSize(SettingsActivity.this));
+                prefs.edit().putInt(KEY_GRID_SIZE, next).apply();
+                updateGridSizeText(next);
+                notifyGridSizeChanged();
+            }
+        });
+        
+        pieceCountLayout.setOnClickListener(new View.OnClickListener() {
+            @Override
+            public void onClick(View v) {
+                int next = getPieceCount(SettingsActivity.this) % MAX_PIECE_COUNT + 1;
+                prefs.edit().putInt(KEY_PIECE_COUNT, next).apply();
+                updatePieceCountText(next);
+                // Как и размер поля, меняет уровни новой партии
+                notifyGridSizeChanged();
+            }
+        });
+        
+        frameOverlaySwitch.setOnCheckedChangeListener(new CompoundButton.OnCheckedChangeListener() {
+            @Override
+            public void onCheckedChanged(CompoundButton buttonView, boolean isChecked) {
+                prefs.edit().putBoolean(KEY_FRAME_OVERLAY, isChecked).apply();
+                updateFrameOverlayText(isChecked);
+            }
+        });
+        
+        diagnosticsLayout.setOnClickListener(new View.OnClickListener() {
+            @Override
+            public void onClick(View v) {
+                startActivity(new Intent(SettingsActivity.this, DiagnosticsActivity.class));
+            }
+        });
+    }
+    
+    private static int nextGridSize(int current) {
+        for (int i = 0; i < GRID_SIZES.length; i++) {
+            if (GRID_SIZES[i] == current) {
+                return GRID_SIZES[(i + 1) % GRID_SIZES.length];
+            }
+        }
+        return DEFAULT_GRID_SIZE;
     }
     
     private void updateThemeText(boolean isDark) {
@@ -109,6 +190,18 @@ public class SettingsActivity extends AppCompatActivity {
         vibrationText.setText("Вибрация: " + (isEnabled ? "Включена" : "Выключена"));
     }
     
+    private void updateGridSizeText(int size) {
+        gridSizeText.setText("Размер поля: " + size + "×" + size);
+    }
+    
+    private void updatePieceCountText(int count) {
+        pieceCountText.setText("Шарики: " + count);
+    }
+    
+    private void updateFrameOverlayText(boolean shown) {
+        frameOverlayText.setText("Время кадров: " + (shown ? "Показано" : "Скрыто"));
+    }
+    
     private void applyTheme() {
         boolean isDarkTheme = prefs.getBoolean(KEY_THEME, true);
         if (isDarkTheme) {
@@ -124,11 +217,16 @@ public class SettingsActivity extends AppCompatActivity {
         updateUIColors(isDarkTheme);
         
         // Отправляем результат обратно в MainActivity
-        Intent resultIntent = new Intent();
         resultIntent.putExtra("theme_changed", true);
         setResult(RESULT_OK, resultIntent);
     }
     
+    private void notifyGridSizeChanged() {
+        // Отправляем результат обратно в MainActivity
+        resultIntent.putExtra("grid_size_changed", true);
+        setResult(RESULT_OK, resultIntent);
+    }
+    
     private void updateUIColors(boolean isDarkTheme) {
         // Обновляем фон главного контейнера
         int backgroundColor = isDarkTheme ? Color.parseColor("#1E1E1E") : Color.parseColor("#F5F5F5");
@@ -142,6 +240,18 @@ public class SettingsActivity extends AppCompatActivity {
         if (vibrationLayout != null) {
             vibrationLayout.setBackgroundColor(cardBackground);
         }
+        if (gridSizeLayout != null) {
+            gridSizeLayout.setBackgroundColor(cardBackground);
+        }
+        if (pieceCountLayout != null) {
+            pieceCountLayout.setBackgroundColor(cardBackground);
+        }
+        if (frameOverlayLayout != null) {
+            frameOverlayLayout.setBackgroundColor(cardBackground);
+        }
+        if (diagnosticsLayout != null) {
+            diagnosticsLayout.setBackgroundColor(cardBackground);
+        }
         if (descriptionLayout != null) {
             descriptionLayout.setBackgroundColor(cardBackground);
         }
@@ -157,6 +267,10 @@ public class SettingsActivity extends AppCompatActivity {
             titleText.setTextColor(Color.parseColor("#4CAF50"));
             themeText.setTextColor(Color.parseColor("#FFFFFF"));
             vibrationText.setTextColor(Color.parseColor("#FFFFFF"));
+            gridSizeText.setTextColor(Color.parseColor("#FFFFFF"));
+            pieceCountText.setTextColor(Color.parseColor("#FFFFFF"));
+            frameOverlayText.setTextColor(Color.parseColor("#FFFFFF"));
+            diagnosticsText.setTextColor(Color.parseColor("#FFFFFF"));
             
             // Обновляем цвета описаний
             if (descriptionLayout != null) {
@@ -172,6 +286,10 @@ public class SettingsActivity extends AppCompatActivity {
             titleText.setTextColor(Color.parseColor("#4CAF50"));
             themeText.setTextColor(Color.parseColor("#212121"));
             vibrationText.setTextColor(Color.parseColor("#212121"));
+            gridSizeText.setTextColor(Color.parseColor("#212121"));
+            pieceCountText.setTextColor(Color.parseColor("#212121"));
+            frameOverlayText.setTextColor(Color.parseColor("#212121"));
+            diagnosticsText.setTextColor(Color.parseColor("#212121"));
             
             // Обновляем цвета описаний
             if (descriptionLayout != null) {
@@ -194,4 +312,19 @@ public class SettingsActivity extends AppCompatActivity {
         SharedPreferences prefs = context.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
         return prefs.getBoolean(KEY_VIBRATION, true);
     }
+    
+    public static boolean isFrameOverlayEnabled(Context context) {
+        SharedPreferences prefs = context.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
+        return prefs.getBoolean(KEY_FRAME_OVERLAY, false);
+    }
+    
+    public static int getGridSize(Context context) {
+        SharedPreferences prefs = context.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
+        return prefs.getInt(KEY_GRID_SIZE, DEFAULT_GRID_SIZE);
+    }
+    
+    public static int getPieceCount(Context context) {
+        SharedPreferences prefs = context.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
+        return Math.max(1, Math.min(MAX_PIECE_COUNT, prefs.getInt(KEY_PIECE_COUNT, 1)));
+    }
 }
@@ -0,0 +1,30 @@
+plugins {
+    `java-library`
+    alias(libs.plugins.jmh)
+}
+
+// Микробенчмарки движка: ход по таблице переходов, решатели, генерация
+// кандидата и полный цикл подбора уровня. Бенчмарки лежат в том же пакете,
+// что и движок, и видят его внутренние классы.
+//   ./gradlew :benchmarks:jmh
+//   ./gradlew :benchmarks:jmh -Pjmh.includes=SolverBenchmark
+java {
+    sourceCompatibility = JavaVersion.VERSION_11
+    targetCompatibility = JavaVersion.VERSION_11
+}
+
+dependencies {
+    jmh(project(":engine"))
+    jmh(testFixtures(project(":engine")))
+}
+
+jmh {
+    jmhVersion.set(libs.versions.jmh)
+    (findProperty("jmh.includes") as String?)?.let { includes.add(it) }
+    fork.set(1)
+    warmupIterations.set(3)
+    iterations.set(5)
+    // gc.alloc.rate.norm — байты на операцию
+    profilers.add("gc")
+    resultFormat.set("JSON")
+}
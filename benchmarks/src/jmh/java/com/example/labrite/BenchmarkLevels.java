@@ -0,0 +1,26 @@
+package com.example.labrite;
+
+import java.util.Random;
+
+// Поля для бенчмарков: рамка и случайные стены заданной плотности из
+// фиксированного зерна, старт и цель в углах, как у генератора
+final class BenchmarkLevels {
+
+    static final long SEED = 0x5EEDL;
+
+    private BenchmarkLevels() {
+    }
+
+    static LevelGrid randomGrid(int size, double density, long seed) {
+        LevelGrid grid = TestGrids.randomGrid(new Random(seed), size, size, density);
+        grid.clearWall(1, 1);
+        grid.clearWall(size - 2, size - 2);
+        return grid;
+    }
+
+    static SlideTable tableFor(LevelGrid grid) {
+        SlideTable table = new SlideTable(grid.getWidth(), grid.getHeight());
+        table.rebuild(grid);
+        return table;
+    }
+}
@@ -0,0 +1,82 @@
+package com.example.labrite;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.util.concurrent.TimeUnit;
+
+// Генерация уровня. Номер уровня задаёт плотность препятствий и пороги
+// ensureMinMoves. Каждый вызов строит один и тот же набор из SEEDS зёрен
+// своего уровня, так что время не зависит от числа вызовов в итерации.
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class GeneratorBenchmark {
+
+    @Param({"10", "64", "256"})
+    public int size;
+
+    @Param({"3", "12"})
+    public int level;
+
+    private static final int SEEDS = 8;
+
+    private LevelGenerator generator;
+    private ParallelLevelGenerator parallel;
+    private final long[] seeds = new long[SEEDS];
+
+    @Setup
+    public void setUp() {
+        generator = new LevelGenerator(size, size);
+        parallel = new ParallelLevelGenerator();
+        for (int i = 0; i < SEEDS; i++) {
+            seeds[i] = LevelSeeds.forLevel(BenchmarkLevels.SEED + i, level);
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        parallel.shutdown();
+    }
+
+    // generateRandomLevel + ensureMinMoves + calculateMinMoves: один кандидат перебора
+    @Benchmark
+    @OperationsPerInvocation(SEEDS)
+    public int candidate() {
+        int moves = 0;
+        for (long seed : seeds) {
+            moves += generator.generateCandidate(level, seed);
+        }
+        return moves;
+    }
+
+    // Обратное построение с точным числом ходов
+    @Benchmark
+    @OperationsPerInvocation(SEEDS)
+    public int backward() {
+        int moves = 0;
+        for (long seed : seeds) {
+            moves += generator.generateBackward(level, seed, LevelGenerator.targetMovesFor(level));
+        }
+        return moves;
+    }
+
+    // Полный подбор уровня, как в startLevel: обратное построение, затем перебор
+    @Benchmark
+    @OperationsPerInvocation(SEEDS)
+    public int fullLevel() throws InterruptedException {
+        int moves = 0;
+        for (long seed : seeds) {
+            moves += parallel.generate(level, 0, size, size, seed).minMoves;
+        }
+        return moves;
+    }
+}
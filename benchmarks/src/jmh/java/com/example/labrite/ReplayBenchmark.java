@@ -0,0 +1,82 @@
+package com.example.labrite;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+// Повтор записанных партий на уже построенных уровнях: то, во что упирается
+// повторный прогон журнала после правки правил. Записи — случайные свайпы
+// по LEVELS уровням, уровни в кэше ReplayEngine с первого вызова.
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class ReplayBenchmark {
+
+    private static final int LEVELS = 8;
+    private static final int SESSIONS = 4096;
+
+    @Param({"10", "64"})
+    public int size;
+
+    private ParallelLevelGenerator generator;
+    private ReplayEngine engine;
+    private final List<SessionLog> logs = new ArrayList<>();
+    private final LevelPlay play = new LevelPlay();
+
+    @Setup
+    public void setUp() throws InterruptedException {
+        generator = new ParallelLevelGenerator();
+        engine = new ReplayEngine(1, ReplayEngine.generating(generator));
+        Direction[] directions = Direction.values();
+        SplittableRandom random = new SplittableRandom(BenchmarkLevels.SEED);
+        SessionRecorder recorder = new SessionRecorder();
+        Level[] levels = new Level[LEVELS];
+        for (int i = 0; i < LEVELS; i++) {
+            levels[i] = generator.generate(i + 1, 10, size, size, LevelSeeds.forLevel(BenchmarkLevels.SEED, i + 1));
+        }
+        logs.clear();
+        for (int i = 0; i < SESSIONS; i++) {
+            int number = 1 + i % LEVELS;
+            Level level = levels[number - 1];
+            play.reset(level);
+            recorder.begin(level, number, 10);
+            for (int swipe = 0; swipe < 64 && play.getOutcome() == LevelPlay.Outcome.PLAYING; swipe++) {
+                Direction direction = directions[random.nextInt(directions.length)];
+                if (play.move(direction)) {
+                    recorder.onMove(direction);
+                }
+            }
+            logs.add(recorder.finish(play.getOutcome(), play.getMovesLeft()));
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        engine.shutdown();
+        generator.shutdown();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(SESSIONS)
+    public int replay() throws InterruptedException {
+        int matched = 0;
+        for (SessionLog log : logs) {
+            if (engine.replay(log, play) == ReplayEngine.Verdict.MATCH) {
+                matched++;
+            }
+        }
+        return matched;
+    }
+}
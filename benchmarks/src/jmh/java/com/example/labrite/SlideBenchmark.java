@@ -0,0 +1,67 @@
+package com.example.labrite;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+// Ход одного шарика, как в LevelPlay: одно чтение из таблицы переходов.
+// Случайная последовательность ходов заготовлена заранее.
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class SlideBenchmark {
+
+    private static final int MOVES = 1024;
+
+    @Param({"10", "64", "256"})
+    public int size;
+
+    @Param({"0.1", "0.3"})
+    public double density;
+
+    private LevelGrid grid;
+    private SlideTable table;
+    private int[] directions;
+    private int start;
+
+    @Setup
+    public void setUp() {
+        grid = BenchmarkLevels.randomGrid(size, density, BenchmarkLevels.SEED);
+        table = BenchmarkLevels.tableFor(grid);
+        SplittableRandom random = new SplittableRandom(BenchmarkLevels.SEED);
+        directions = new int[MOVES];
+        for (int i = 0; i < MOVES; i++) {
+            directions[i] = random.nextInt(SlideTable.DIRECTIONS);
+        }
+        start = table.cell(1, 1);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(MOVES)
+    public int slide() {
+        int cell = start;
+        for (int direction : directions) {
+            cell = table.stop(cell, direction);
+        }
+        return cell;
+    }
+
+    // Пересчёт строки и столбца после одной стены — то, что делает DynamicLevel.
+    // Стена в центре ставится и убирается по очереди, поле остаётся прежним.
+    @Benchmark
+    public int wallChanged() {
+        int center = size / 2;
+        grid.setWall(center, center, !grid.isWall(center, center));
+        table.onWallChanged(grid, center, center);
+        return table.stop(start, 0);
+    }
+}
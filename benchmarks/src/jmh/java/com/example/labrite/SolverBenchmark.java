@@ -0,0 +1,120 @@
+package com.example.labrite;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+// calculateMinMoves: все решатели на одном и том же поле из фиксированного зерна.
+// Кроме времени печатаются счётчики Nodes: по ним видно, сколько клеток
+// обходит каждый решатель, и выбор AUTO (BFS или двунаправленный, без A*)
+// можно перепроверить на тех же полях.
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class SolverBenchmark {
+
+    @Param({"10", "64", "256"})
+    public int size;
+
+    @Param({"0.1", "0.3"})
+    public double density;
+
+    private SlideTable table;
+    private int start;
+    private int target;
+    private final SlideSolver bfs = new SlideSolver();
+    private final BidirectionalSlideSolver bidirectional = new BidirectionalSlideSolver();
+    private final InformedSolver informed = new InformedSolver();
+
+    // Старт — самая дальняя от цели достижимая клетка: случайные стены могут
+    // отрезать противоположный угол, и тогда замерялся бы мгновенный отказ.
+    // Цель — клетка диагонали от угла с самой длинной такой задачей.
+    @Setup
+    public void setUp() {
+        LevelGrid grid = BenchmarkLevels.randomGrid(size, density, BenchmarkLevels.SEED);
+        table = BenchmarkLevels.tableFor(grid);
+        int farthest = 0;
+        for (int k = size - 2; k >= 1; k--) {
+            if (!grid.isWall(k, k)) {
+                int cell = table.cell(k, k);
+                int distance = bfs.distancesTo(table, cell);
+                if (distance > farthest) {
+                    farthest = distance;
+                    target = cell;
+                }
+            }
+        }
+        farthest = bfs.distancesTo(table, target);
+        start = -1;
+        for (int cell = 0; cell < size * size && start < 0; cell++) {
+            if (bfs.distanceFrom(cell) == farthest) {
+                start = cell;
+            }
+        }
+        if (farthest == 0 || bfs.minMoves(table, start, target) != farthest) {
+            throw new IllegalStateException("No reachable start for size " + size + " density " + density);
+        }
+    }
+
+    // Узлы поиска за итерацию: у BFS и двунаправленного — помеченные клетки,
+    // у A* и IDA* — раскрытые. nodes / calls — узлов на один вызов
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class Nodes {
+        public long calls;
+        public long nodes;
+
+        @Setup(org.openjdk.jmh.annotations.Level.Iteration)
+        public void reset() {
+            calls = 0;
+            nodes = 0;
+        }
+
+        void add(int count) {
+            calls++;
+            nodes += count;
+        }
+    }
+
+    @Benchmark
+    public int bfs(Nodes nodes) {
+        int moves = bfs.minMoves(table, start, target);
+        nodes.add(bfs.getVisitedCount());
+        return moves;
+    }
+
+    @Benchmark
+    public int bidirectional(Nodes nodes) {
+        int moves = bidirectional.minMoves(table, start, target);
+        nodes.add(bidirectional.getVisitedCount());
+        return moves;
+    }
+
+    @Benchmark
+    public int aStar(Nodes nodes) {
+        int moves = informed.minMovesAStar(table, start, target);
+        nodes.add(informed.getExpandedCount());
+        return moves;
+    }
+
+    @Benchmark
+    public int idaStar(Nodes nodes) {
+        int moves = informed.minMovesIdaStar(table, start, target);
+        nodes.add(informed.getExpandedCount());
+        return moves;
+    }
+
+    // Обратный поиск от цели, на котором стоит обратное построение уровня
+    @Benchmark
+    public int distancesToTarget() {
+        return bfs.distancesTo(table, target);
+    }
+}
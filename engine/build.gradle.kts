@@ -0,0 +1,65 @@
+plugins {
+    `java-library`
+    `java-test-fixtures`
+}
+
+// Движок игры без зависимостей от Android: поле, таблица переходов, решатели,
+// генераторы и хранилище уровней. Его использует приложение, и он же
+// запускается на JVM пакетной генерацией. Общие заготовки тестов (случайные
+// поля) лежат в src/testFixtures, их видят и тесты, и бенчмарки.
+java {
+    sourceCompatibility = JavaVersion.VERSION_11
+    targetCompatibility = JavaVersion.VERSION_11
+}
+
+dependencies {
+    testImplementation(libs.junit)
+}
+
+// Tracer.BUILD_LEVEL. У java-library нет типов сборки, поэтому по умолчанию
+// INFO: записи DEBUG вырезаются компилятором в любой сборке, включая релизную.
+// Для отладки уровень поднимают явно: ./gradlew ... -Ptracer.buildLevel=3
+val traceBuildLevel = (findProperty("tracer.buildLevel") as String?)?.toInt() ?: 2
+
+val generateTraceBuild = tasks.register("generateTraceBuild") {
+    val outputDir = layout.buildDirectory.dir("generated/sources/traceBuild/java")
+    val level = traceBuildLevel
+    inputs.property("level", level)
+    outputs.dir(outputDir)
+    doLast {
+        val file = outputDir.get().file("com/example/labrite/TraceBuild.java").asFile
+        file.parentFile.mkdirs()
+        file.writeText(
+            """
+            |package com.example.labrite;
+            |
+            |// Создаётся задачей generateTraceBuild из engine/build.gradle.kts
+            |final class TraceBuild {
+            |
+            |    static final int LEVEL = $level;
+            |
+            |    private TraceBuild() {
+            |    }
+            |}
+            |""".trimMargin()
+        )
+    }
+}
+
+sourceSets["main"].java.srcDir(generateTraceBuild)
+
+// ./gradlew :engine:batchGenerate --args="--sizes 10,32 --levels 1-20 --count 50"
+tasks.register<JavaExec>("batchGenerate") {
+    group = "application"
+    description = "Generates levels headlessly and prints throughput and difficulty statistics"
+    classpath = sourceSets["main"].runtimeClasspath
+    mainClass.set("com.example.labrite.BatchGenerator")
+}
+
+// ./gradlew :engine:replaySessions --args="--in sessions.bin,sessions.bin.1 --repeat 3"
+tasks.register<JavaExec>("replaySessions") {
+    group = "application"
+    description = "Replays recorded play sessions headlessly and reports outcome mismatches"
+    classpath = sourceSets["main"].runtimeClasspath
+    mainClass.set("com.example.labrite.ReplaySessions")
+}
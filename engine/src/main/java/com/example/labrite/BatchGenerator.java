@@ -0,0 +1,200 @@
+package com.example.labrite;
+
+import java.io.BufferedWriter;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+// Пакетная генерация уровней на JVM без Android: тот же ParallelLevelGenerator,
+// что и в игре. Печатает скорость, число попыток на уровень, причины отказов
+// и гистограмму minMoves; по желанию записывает уровни в текстовый файл.
+//
+//   --sizes 10,32     размеры квадратного поля
+//   --levels 1-20     диапазон номеров уровней
+//   --count 20        уровней на каждый номер
+//   --session 1       первое зерно партии (уровень i строится с session + i)
+//   --threads N       сколько уровней строится одновременно (по умолчанию все ядра)
+//   --workers N       потоков перебора внутри одного уровня
+//   --solver KIND     решатель minMoves: auto, bfs, bidi, astar, idastar — чтобы
+//                     сравнить их время в отчёте на настоящих уровнях
+//   --out file.txt    записать уровни
+public final class BatchGenerator {
+
+    private int[] sizes = {10};
+    private int firstLevel = 1;
+    private int lastLevel = 20;
+    private int count = 20;
+    private long session = 1;
+    private int threads = Runtime.getRuntime().availableProcessors();
+    private int workers = ParallelLevelGenerator.defaultWorkerCount();
+    private LevelGenerator.SolverKind solverKind = LevelGenerator.SolverKind.AUTO;
+    private String outPath;
+
+    private BatchGenerator() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        BatchGenerator batch = new BatchGenerator();
+        try {
+            batch.parse(args);
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.exit(2);
+            return;
+        }
+        batch.run(System.out);
+    }
+
+    private void parse(String[] args) {
+        for (int i = 0; i < args.length; i++) {
+            String name = args[i];
+            if (i + 1 >= args.length) {
+                throw new IllegalArgumentException("Missing value for " + name);
+            }
+            String value = args[++i];
+            switch (name) {
+                case "--sizes":
+                    String[] parts = value.split(",");
+                    sizes = new int[parts.length];
+                    for (int k = 0; k < parts.length; k++) {
+                        sizes[k] = Integer.parseInt(parts[k].trim());
+                    }
+                    break;
+                case "--levels":
+                    int dash = value.indexOf('-');
+                    firstLevel = Integer.parseInt(dash < 0 ? value : value.substring(0, dash));
+                    lastLevel = dash < 0 ? firstLevel : Integer.parseInt(value.substring(dash + 1));
+                    break;
+                case "--count":
+                    count = Integer.parseInt(value);
+                    break;
+                case "--session":
+                    session = Long.parseLong(value);
+                    break;
+                case "--threads":
+                    threads = Integer.parseInt(value);
+                    break;
+                case "--workers":
+                    workers = Integer.parseInt(value);
+                    break;
+                case "--solver":
+                    solverKind = parseSolver(value);
+                    break;
+                case "--out":
+                    outPath = value;
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown option " + name);
+            }
+        }
+        for (int size : sizes) {
+            if (size < 5 || size > 256) {
+                throw new IllegalArgumentException("Grid size must be within 5..256: " + size);
+            }
+        }
+        if (firstLevel < 1 || lastLevel < firstLevel || count < 1 || threads < 1 || workers < 1) {
+            throw new IllegalArgumentException("Invalid levels/count/threads/workers");
+        }
+    }
+
+    private static LevelGenerator.SolverKind parseSolver(String value) {
+        switch (value) {
+            case "auto":
+                return LevelGenerator.SolverKind.AUTO;
+            case "bfs":
+                return LevelGenerator.SolverKind.BFS;
+            case "bidi":
+                return LevelGenerator.SolverKind.BIDIRECTIONAL;
+            case "astar":
+                return LevelGenerator.SolverKind.A_STAR;
+            case "idastar":
+                return LevelGenerator.SolverKind.IDA_STAR;
+            default:
+                throw new IllegalArgumentException("Unknown solver " + value + ", use auto|bfs|bidi|astar|idastar");
+        }
+    }
+
+    private void run(PrintStream report) throws IOException, InterruptedException, ExecutionException {
+        BufferedWriter out = outPath != null ? new BufferedWriter(new FileWriter(outPath)) : null;
+        ExecutorService callers = Executors.newFixedThreadPool(threads);
+        try {
+            for (int size : sizes) {
+                ParallelLevelGenerator generator = new ParallelLevelGenerator(workers);
+                generator.setSolverKind(solverKind);
+                try {
+                    runSize(generator, callers, size, out, report);
+                } finally {
+                    generator.shutdown();
+                }
+            }
+        } finally {
+            callers.shutdownNow();
+            if (out != null) {
+                out.close();
+            }
+        }
+    }
+
+    private void runSize(final ParallelLevelGenerator generator, ExecutorService callers, final int size,
+                         BufferedWriter out, PrintStream report)
+            throws IOException, InterruptedException, ExecutionException {
+        long started = System.nanoTime();
+        for (int level = firstLevel; level <= lastLevel; level++) {
+            List<Future<Level>> batch = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                final int number = level;
+                final long seed = LevelSeeds.forLevel(session + i, level);
+                // Запас ходов не важен для статистики: генератор даст minMoves + 2
+                batch.add(callers.submit(() -> generator.generate(number, 0, size, size, seed)));
+            }
+            // Уровни пишутся по порядку, а в памяти держится только один номер уровня
+            for (Future<Level> future : batch) {
+                Level ready = future.get();
+                if (out != null) {
+                    write(out, level, ready);
+                }
+            }
+        }
+        double seconds = (System.nanoTime() - started) / 1e9;
+        printReport(report, size, generator.getStats(), seconds);
+    }
+
+    private static void write(BufferedWriter out, int level, Level ready) throws IOException {
+        LevelGrid grid = ready.grid;
+        out.write(String.format(Locale.ROOT, "level=%d size=%dx%d seed=%d minMoves=%d start=%d,%d target=%d,%d",
+                level, grid.getWidth(), grid.getHeight(), ready.seed, ready.minMoves,
+                ready.startX, ready.startY, ready.targetX, ready.targetY));
+        out.newLine();
+        char[] row = new char[grid.getWidth()];
+        for (int y = 0; y < grid.getHeight(); y++) {
+            for (int x = 0; x < grid.getWidth(); x++) {
+                if (x == ready.startX && y == ready.startY) {
+                    row[x] = 'S';
+                } else if (x == ready.targetX && y == ready.targetY) {
+                    row[x] = 'T';
+                } else {
+                    row[x] = grid.isWall(x, y) ? '#' : '.';
+                }
+            }
+            out.write(row);
+            out.newLine();
+        }
+        out.newLine();
+    }
+
+    private void printReport(PrintStream report, int size, GenerationStats stats, double seconds) {
+        long levels = stats.getLevels();
+        report.printf(Locale.ROOT, "%dx%d: %d levels in %.2f s, %.1f levels/s (%d threads, %d workers, solver %s)%n",
+                size, size, levels, seconds, levels / seconds, threads, workers, solverKind);
+        for (String line : stats.formatReport().split("\\R")) {
+            report.println("  " + line);
+        }
+    }
+}
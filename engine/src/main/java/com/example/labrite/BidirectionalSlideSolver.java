@@ -0,0 +1,125 @@
+package com.example.labrite;
+
+import java.util.Arrays;
+
+// Двунаправленный BFS: прямой поиск от старта по таблице переходов и
+// обратный от цели по обратному отношению таблицы. На каждом шаге целиком
+// раскрывается меньший из двух фронтов; как только фронты встретились,
+// минимум по встречам в этом слое и есть кратчайший путь.
+final class BidirectionalSlideSolver {
+
+    private static final int NOT_FOUND = Integer.MAX_VALUE;
+
+    private int[] forwardQueue = new int[0];
+    private int[] backwardQueue = new int[0];
+    private int[] forwardDistance = new int[0];
+    private int[] backwardDistance = new int[0];
+    private int[] forwardStamp = new int[0];
+    private int[] backwardStamp = new int[0];
+    private int generation;
+    private int visitedCount;
+
+    // Минимальное число ходов из start в target или -1, если цель недостижима
+    int minMoves(SlideTable table, int start, int target) {
+        int cells = table.getWidth() * table.getHeight();
+        ensureCapacity(cells);
+        int mark = nextGeneration();
+
+        if (start == target) {
+            visitedCount = 1;
+            return 0;
+        }
+
+        int forwardHead = 0;
+        int forwardTail = 0;
+        forwardQueue[forwardTail++] = start;
+        forwardStamp[start] = mark;
+        forwardDistance[start] = 0;
+
+        int backwardHead = 0;
+        int backwardTail = 0;
+        backwardQueue[backwardTail++] = target;
+        backwardStamp[target] = mark;
+        backwardDistance[target] = 0;
+
+        int best = NOT_FOUND;
+        while (forwardHead < forwardTail && backwardHead < backwardTail) {
+            if (forwardTail - forwardHead <= backwardTail - backwardHead) {
+                int layerEnd = forwardTail;
+                while (forwardHead < layerEnd) {
+                    int current = forwardQueue[forwardHead++];
+                    int nextDistance = forwardDistance[current] + 1;
+                    for (int d = 0; d < SlideTable.DIRECTIONS; d++) {
+                        int next = table.stop(current, d);
+                        if (forwardStamp[next] == mark) {
+                            continue;
+                        }
+                        forwardStamp[next] = mark;
+                        forwardDistance[next] = nextDistance;
+                        forwardQueue[forwardTail++] = next;
+                        if (backwardStamp[next] == mark) {
+                            best = Math.min(best, nextDistance + backwardDistance[next]);
+                        }
+                    }
+                }
+            } else {
+                int layerEnd = backwardTail;
+                while (backwardHead < layerEnd) {
+                    int current = backwardQueue[backwardHead++];
+                    int nextDistance = backwardDistance[current] + 1;
+                    for (int d = 0; d < SlideTable.DIRECTIONS; d++) {
+                        int from = table.reverseFrom(current, d);
+                        if (from < 0) {
+                            continue;
+                        }
+                        // Все клетки отрезка [from, current) приезжают в current
+                        int step = table.step(d);
+                        for (int previous = from; previous != current; previous += step) {
+                            if (backwardStamp[previous] == mark) {
+                                continue;
+                            }
+                            backwardStamp[previous] = mark;
+                            backwardDistance[previous] = nextDistance;
+                            backwardQueue[backwardTail++] = previous;
+                            if (forwardStamp[previous] == mark) {
+                                best = Math.min(best, nextDistance + forwardDistance[previous]);
+                            }
+                        }
+                    }
+                }
+            }
+            if (best != NOT_FOUND) {
+                visitedCount = forwardTail + backwardTail;
+                return best;
+            }
+        }
+        visitedCount = forwardTail + backwardTail;
+        return -1;
+    }
+
+    // Сколько состояний было помечено обоими фронтами в последнем вызове
+    int getVisitedCount() {
+        return visitedCount;
+    }
+
+    private void ensureCapacity(int cells) {
+        if (forwardQueue.length < cells) {
+            forwardQueue = new int[cells];
+            backwardQueue = new int[cells];
+            forwardDistance = new int[cells];
+            backwardDistance = new int[cells];
+            forwardStamp = new int[cells];
+            backwardStamp = new int[cells];
+            generation = 0;
+        }
+    }
+
+    private int nextGeneration() {
+        if (++generation == 0) {
+            Arrays.fill(forwardStamp, 0);
+            Arrays.fill(backwardStamp, 0);
+            generation = 1;
+        }
+        return generation;
+    }
+}
@@ -0,0 +1,90 @@
+package com.example.labrite;
+
+import java.util.Arrays;
+
+// Геометрия статичного поля, посчитанная один раз на уровень.
+// Соседние стены склеиваются в максимальные прямоугольники: сначала
+// горизонтальные отрезки в каждой строке, затем отрезки с одинаковыми
+// границами в соседних строках объединяются по вертикали.
+// Проходам отдельная геометрия не нужна — это фон всего поля.
+final class BoardGeometry {
+
+    private final int width;
+    private final int height;
+    // Прямоугольники стен в клетках: left, top, right, bottom (правая и нижняя границы не включены)
+    private final int[] wallRects;
+    private final int wallRectCount;
+
+    private BoardGeometry(int width, int height, int[] wallRects, int wallRectCount) {
+        this.width = width;
+        this.height = height;
+        this.wallRects = wallRects;
+        this.wallRectCount = wallRectCount;
+    }
+
+    static BoardGeometry build(LevelGrid grid) {
+        int width = grid.getWidth();
+        int height = grid.getHeight();
+        int[] rects = new int[64];
+        int count = 0;
+        // Открытый прямоугольник, начинающийся в столбце x, или -1
+        int[] openByStart = new int[width];
+        Arrays.fill(openByStart, -1);
+
+        for (int y = 0; y < height; y++) {
+            int x = grid.nextWallInRow(y, 0);
+            while (x < width) {
+                int end = x + 1;
+                while (end < width && grid.isWall(end, y)) {
+                    end++;
+                }
+
+                int open = openByStart[x];
+                if (open >= 0 && rects[open * 4 + 2] == end && rects[open * 4 + 3] == y) {
+                    // Тот же отрезок, что и строкой выше — растим прямоугольник вниз
+                    rects[open * 4 + 3] = y + 1;
+                } else {
+                    if ((count + 1) * 4 > rects.length) {
+                        rects = Arrays.copyOf(rects, rects.length * 2);
+                    }
+                    rects[count * 4] = x;
+                    rects[count * 4 + 1] = y;
+                    rects[count * 4 + 2] = end;
+                    rects[count * 4 + 3] = y + 1;
+                    openByStart[x] = count;
+                    count++;
+                }
+                x = grid.nextWallInRow(y, end);
+            }
+        }
+        return new BoardGeometry(width, height, rects, count);
+    }
+
+    int getWidth() {
+        return width;
+    }
+
+    int getHeight() {
+        return height;
+    }
+
+    int getWallRectCount() {
+        return wallRectCount;
+    }
+
+    int wallLeft(int index) {
+        return wallRects[index * 4];
+    }
+
+    int wallTop(int index) {
+        return wallRects[index * 4 + 1];
+    }
+
+    int wallRight(int index) {
+        return wallRects[index * 4 + 2];
+    }
+
+    int wallBottom(int index) {
+        return wallRects[index * 4 + 3];
+    }
+}
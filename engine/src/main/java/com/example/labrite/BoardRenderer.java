@@ -0,0 +1,52 @@
+package com.example.labrite;
+
+// Рисует окно поля (cols x rows клеток начиная с originX, originY) из
+// готовой геометрии: один прямоугольник фона, склеенные стены, попавшие
+// в окно, и вся сетка одним вызовом drawGridLines.
+final class BoardRenderer {
+
+    private float[] gridLines = new float[0];
+
+    void render(BoardGeometry geometry, BoardSurface surface,
+                int originX, int originY, int cols, int rows, float cellSize) {
+        float windowRight = cols * cellSize;
+        float windowBottom = rows * cellSize;
+        surface.drawRect(BoardSurface.PAINT_PATH, 0, 0, windowRight, windowBottom);
+
+        int endX = originX + cols;
+        int endY = originY + rows;
+        for (int i = 0; i < geometry.getWallRectCount(); i++) {
+            int left = Math.max(geometry.wallLeft(i), originX);
+            int top = Math.max(geometry.wallTop(i), originY);
+            int right = Math.min(geometry.wallRight(i), endX);
+            int bottom = Math.min(geometry.wallBottom(i), endY);
+            if (left >= right || top >= bottom) {
+                continue;
+            }
+            surface.drawRect(BoardSurface.PAINT_WALL,
+                    (left - originX) * cellSize, (top - originY) * cellSize,
+                    (right - originX) * cellSize, (bottom - originY) * cellSize);
+        }
+
+        int needed = (cols + 1 + rows + 1) * 4;
+        if (gridLines.length < needed) {
+            gridLines = new float[needed];
+        }
+        int n = 0;
+        for (int col = 0; col <= cols; col++) {
+            float x = col * cellSize;
+            gridLines[n++] = x;
+            gridLines[n++] = 0;
+            gridLines[n++] = x;
+            gridLines[n++] = windowBottom;
+        }
+        for (int row = 0; row <= rows; row++) {
+            float y = row * cellSize;
+            gridLines[n++] = 0;
+            gridLines[n++] = y;
+            gridLines[n++] = windowRight;
+            gridLines[n++] = y;
+        }
+        surface.drawGridLines(gridLines, 0, n);
+    }
+}
@@ -0,0 +1,14 @@
+package com.example.labrite;
+
+// То, на чём рисуется статичное поле. В игре это обёртка над Canvas,
+// в тестах — счётчик вызовов, так что рендерер проверяется без Android.
+interface BoardSurface {
+
+    int PAINT_PATH = 0;
+    int PAINT_WALL = 1;
+
+    void drawRect(int paint, float left, float top, float right, float bottom);
+
+    // Линии сетки: по четыре координаты на отрезок
+    void drawGridLines(float[] points, int offset, int count);
+}
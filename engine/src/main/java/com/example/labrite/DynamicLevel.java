@@ -0,0 +1,138 @@
+package com.example.labrite;
+
+import java.util.Arrays;
+
+// Поле с поддержкой правок стен и инкрементальным пересчётом расстояния
+// от старта до цели. Правка стены меняет остановки только в своей строке и
+// своём столбце; все клетки BFS с расстоянием не больше минимального
+// расстояния затронутых клеток остаются верными, поэтому поиск
+// продолжается с этого слоя, а не с нуля.
+final class DynamicLevel {
+
+    private final LevelGrid grid;
+    private final SlideTable table;
+    private final int width;
+    private final int height;
+
+    private int start;
+    private int target;
+
+    // Порядок обхода BFS: клетки лежат по неубыванию расстояния
+    private final int[] order;
+    private final int[] distance;
+    private final int[] stamp;
+    private int generation;
+    private int head;
+    private int tail;
+
+    DynamicLevel(LevelGrid grid, SlideTable table) {
+        this.grid = grid;
+        this.table = table;
+        this.width = grid.getWidth();
+        this.height = grid.getHeight();
+        int cells = width * height;
+        this.order = new int[cells];
+        this.distance = new int[cells];
+        this.stamp = new int[cells];
+    }
+
+    // Начинает новый поиск; поле и таблица должны быть уже согласованы
+    void reset(int start, int target) {
+        this.start = start;
+        this.target = target;
+        restart();
+    }
+
+    // Минимальное число ходов от старта до цели или -1, если цель недостижима
+    int minMoves() {
+        int mark = generation;
+        if (stamp[target] == mark) {
+            return distance[target];
+        }
+        while (head < tail) {
+            int current = order[head++];
+            int nextDistance = distance[current] + 1;
+            for (int d = 0; d < SlideTable.DIRECTIONS; d++) {
+                int next = table.stop(current, d);
+                if (stamp[next] != mark) {
+                    stamp[next] = mark;
+                    distance[next] = nextDistance;
+                    order[tail++] = next;
+                }
+            }
+            // Останавливаемся только между клетками, чтобы раскрытая клетка
+            // всегда была раскрыта полностью — на этом держится починка
+            if (stamp[target] == mark) {
+                return distance[target];
+            }
+        }
+        return -1;
+    }
+
+    void addWall(int x, int y) {
+        setWall(x, y, true);
+    }
+
+    void setWall(int x, int y, boolean wall) {
+        if (grid.isWall(x, y) == wall) {
+            return;
+        }
+        grid.setWall(x, y, wall);
+        table.onWallChanged(grid, x, y);
+        repairAfterEdit(x, y);
+    }
+
+    private void repairAfterEdit(int x, int y) {
+        int edited = y * width + x;
+        if (edited == start || edited == target) {
+            restart();
+            return;
+        }
+        int mark = generation;
+        // Все клетки с расстоянием до последнего раскрытого слоя включительно
+        // уже найдены, значит ненайденные лежат не ближе следующего слоя
+        int undiscovered = head > 0 ? distance[order[head - 1]] + 1 : 0;
+
+        // Минимальное расстояние среди клеток, чьи исходящие ходы могли измениться
+        int affected = Integer.MAX_VALUE;
+        for (int i = 0; i < width; i++) {
+            affected = Math.min(affected, layerOf(y * width + i, mark, undiscovered));
+        }
+        for (int i = 0; i < height; i++) {
+            affected = Math.min(affected, layerOf(i * width + x, mark, undiscovered));
+        }
+        if (affected <= 0) {
+            restart();
+            return;
+        }
+
+        // Отбрасываем всё дальше слоя affected и заново раскрываем сам этот слой
+        int newTail = tail;
+        while (newTail > 0 && distance[order[newTail - 1]] > affected) {
+            newTail--;
+            stamp[order[newTail]] = 0;
+        }
+        int newHead = Math.min(head, newTail);
+        while (newHead > 0 && distance[order[newHead - 1]] >= affected) {
+            newHead--;
+        }
+        head = newHead;
+        tail = newTail;
+    }
+
+    private int layerOf(int cell, int mark, int undiscovered) {
+        return stamp[cell] == mark ? distance[cell] : undiscovered;
+    }
+
+    private void restart() {
+        if (++generation == 0) {
+            Arrays.fill(stamp, 0);
+            generation = 1;
+        }
+        head = 0;
+        tail = 0;
+        order[tail++] = start;
+        stamp[start] = generation;
+        distance[start] = 0;
+    }
+}
@@ -0,0 +1,182 @@
+package com.example.labrite;
+
+import java.util.Locale;
+
+// Время кадров: сколько длилась отрисовка и сколько прошло от кадра до кадра,
+// плюс пропущенные кадры по фазам игры. Промежутки и пропуски считаются только
+// между кадрами, которые часы анимаций запросили подряд: перерисовка по касанию
+// после простоя — это не кадр, опоздавший на весь простой. Гистограммы линейные с шагом 0.25 мс
+// до 100 мс — у кадров важна разница между 16 и 33 мс, которую корзины по
+// степеням двойки не различают. Все массивы создаются заранее, запись кадра
+// ничего не аллоцирует. Пишется и читается только из UI-потока.
+final class FrameStats {
+
+    // Что происходило на экране во время кадра
+    enum Phase {
+        IDLE,
+        // Шарик скользит
+        SLIDE,
+        // Загрузка уровня и первые кадры нового поля
+        TRANSITION
+    }
+
+    static final long DEFAULT_FRAME_PERIOD_NANOS = 16_666_667L;
+    // Более длинный промежуток — это пауза (окно скрыто, часы стояли), а не кадр
+    static final long MAX_INTERVAL_NANOS = 1_000_000_000L;
+
+    private final Histogram drawTimes = new Histogram();
+    private final Histogram intervals = new Histogram();
+    private final long[] frames = new long[Phase.values().length];
+    private final long[] dropped = new long[Phase.values().length];
+    private long framePeriodNanos = DEFAULT_FRAME_PERIOD_NANOS;
+    private long lastFrameNanos = -1;
+
+    // Период обновления дисплея: пропуск считается в целых периодах
+    void setFramePeriodNanos(long framePeriodNanos) {
+        if (framePeriodNanos > 0) {
+            this.framePeriodNanos = framePeriodNanos;
+        }
+    }
+
+    long getFramePeriodNanos() {
+        return framePeriodNanos;
+    }
+
+    // frameNanos — время vsync кадра; chained — кадр запрошен предыдущим кадром
+    // часов, то есть должен был прийти ровно через период после него
+    void onFrame(long frameNanos, long drawNanos, Phase phase, boolean chained) {
+        drawTimes.record(drawNanos);
+        frames[phase.ordinal()]++;
+        if (chained && lastFrameNanos >= 0) {
+            long interval = frameNanos - lastFrameNanos;
+            if (interval > 0 && interval < MAX_INTERVAL_NANOS) {
+                intervals.record(interval);
+                // Промежуток округляется до целого числа периодов, лишние периоды — пропуски
+                long missed = (interval + framePeriodNanos / 2) / framePeriodNanos - 1;
+                if (missed > 0) {
+                    dropped[phase.ordinal()] += missed;
+                }
+            }
+        }
+        lastFrameNanos = frameNanos;
+    }
+
+    // Кадров не будет какое-то время: следующий промежуток не считаем
+    void onPause() {
+        lastFrameNanos = -1;
+    }
+
+    Histogram getDrawTimes() {
+        return drawTimes;
+    }
+
+    Histogram getIntervals() {
+        return intervals;
+    }
+
+    long getFrames(Phase phase) {
+        return frames[phase.ordinal()];
+    }
+
+    long getDropped(Phase phase) {
+        return dropped[phase.ordinal()];
+    }
+
+    void reset() {
+        drawTimes.reset();
+        intervals.reset();
+        for (int i = 0; i < frames.length; i++) {
+            frames[i] = 0;
+            dropped[i] = 0;
+        }
+        lastFrameNanos = -1;
+    }
+
+    // Короткая сводка для оверлея поверх поля, по строке на показатель
+    String formatOverlay() {
+        return String.format(Locale.ROOT, "draw  p50 %.2f p95 %.2f p99 %.2f max %.2f ms%n"
+                        + "frame p50 %.2f p95 %.2f p99 %.2f max %.2f ms%n"
+                        + "dropped slide %d transition %d idle %d",
+                millis(drawTimes.percentileNanos(50)), millis(drawTimes.percentileNanos(95)),
+                millis(drawTimes.percentileNanos(99)), millis(drawTimes.getMaxNanos()),
+                millis(intervals.percentileNanos(50)), millis(intervals.percentileNanos(95)),
+                millis(intervals.percentileNanos(99)), millis(intervals.getMaxNanos()),
+                getDropped(Phase.SLIDE), getDropped(Phase.TRANSITION), getDropped(Phase.IDLE));
+    }
+
+    // Полный отчёт для экрана диагностики и выгрузки в файл
+    String formatReport() {
+        StringBuilder out = new StringBuilder();
+        out.append(String.format(Locale.ROOT, "frame period: %.2f ms%n", millis(framePeriodNanos)));
+        appendHistogram(out, "draw time", drawTimes);
+        appendHistogram(out, "frame interval", intervals);
+        for (Phase phase : Phase.values()) {
+            long count = getFrames(phase);
+            long missed = getDropped(phase);
+            out.append(String.format(Locale.ROOT, "%s: %d frames, %d dropped (%.1f%%)%n",
+                    phase, count, missed, 100.0 * missed / Math.max(1, count + missed)));
+        }
+        return out.toString();
+    }
+
+    private static void appendHistogram(StringBuilder out, String name, Histogram histogram) {
+        out.append(String.format(Locale.ROOT, "%s: n=%d p50 %.2f p95 %.2f p99 %.2f max %.2f ms%n",
+                name, histogram.getCount(), millis(histogram.percentileNanos(50)),
+                millis(histogram.percentileNanos(95)), millis(histogram.percentileNanos(99)),
+                millis(histogram.getMaxNanos())));
+    }
+
+    private static double millis(long nanos) {
+        return nanos / 1e6;
+    }
+
+    // Линейная гистограмма фиксированного размера; последняя корзина собирает всё, что дольше
+    static final class Histogram {
+
+        static final long BUCKET_NANOS = 250_000L;
+        static final int BUCKETS = 401;
+
+        private final long[] counts = new long[BUCKETS];
+        private long count;
+        private long maxNanos;
+
+        void record(long nanos) {
+            long clamped = Math.max(0, nanos);
+            counts[(int) Math.min(BUCKETS - 1, clamped / BUCKET_NANOS)]++;
+            count++;
+            maxNanos = Math.max(maxNanos, clamped);
+        }
+
+        long getCount() {
+            return count;
+        }
+
+        long getMaxNanos() {
+            return maxNanos;
+        }
+
+        // Оценка перцентиля (0..100) по правой границе корзины, не больше максимума
+        long percentileNanos(double percentile) {
+            if (count == 0) {
+                return 0;
+            }
+            long rank = Math.max(1, (long) Math.ceil(count * Math.min(100.0, Math.max(0.0, percentile)) / 100.0));
+            long seen = 0;
+            for (int i = 0; i < BUCKETS; i++) {
+                seen += counts[i];
+                if (seen >= rank) {
+                    return i == BUCKETS - 1 ? maxNanos : Math.min((i + 1) * BUCKET_NANOS, maxNanos);
+                }
+            }
+            return maxNanos;
+        }
+
+        void reset() {
+            for (int i = 0; i < BUCKETS; i++) {
+                counts[i] = 0;
+            }
+            count = 0;
+            maxNanos = 0;
+        }
+    }
+}
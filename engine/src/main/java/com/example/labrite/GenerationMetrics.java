@@ -0,0 +1,73 @@
+package com.example.labrite;
+
+// Что генератор сообщает о своей работе. Вызовы идут из любых потоков
+// генерации прямо в горячих циклах, поэтому реализация должна быть
+// без блокировок и без аллокаций. NONE ничего не записывает.
+interface GenerationMetrics {
+
+    // Почему кандидат не стал уровнем
+    enum Rejection {
+        // Обратное построение не набрало нужной глубины — пошли в перебор
+        BACKWARD_SHALLOW,
+        // Цель недостижима из старта
+        UNREACHABLE,
+        // Решается быстрее порога приёма
+        TOO_FEW_MOVES,
+        // Достроен, но уже найдена подходящая попытка с меньшим номером
+        SUPERSEDED,
+        // Бюджет исчерпан, выдан запасной кандидат
+        BUDGET_EXHAUSTED
+    }
+
+    // Откуда взялся выданный уровень
+    enum Source {
+        BACKWARD,
+        SEARCH,
+        // Ни один кандидат не прошёл порог за отведённое время или число попыток
+        FALLBACK
+    }
+
+    // Построен ещё один кандидат (обратный или прямой)
+    void onAttempt();
+
+    // Один шаг ensureMinMoves: проверка расстояния и, возможно, новая стена
+    void onEnsureIteration();
+
+    // Полный поиск минимума ходов и сколько он занял
+    void onSolverCall(long nanos);
+
+    void onRejected(Rejection reason);
+
+    // Поиск закончился по времени, а не по числу попыток
+    void onTimeout();
+
+    // Уровень выдан. minMoves — настоящий минимум ходов (-1, если цель
+    // недостижима), даже если в сам уровень записано подстраховочное число.
+    void onLevel(int minMoves, Source source, long nanos);
+
+    GenerationMetrics NONE = new GenerationMetrics() {
+        @Override
+        public void onAttempt() {
+        }
+
+        @Override
+        public void onEnsureIteration() {
+        }
+
+        @Override
+        public void onSolverCall(long nanos) {
+        }
+
+        @Override
+        public void onRejected(Rejection reason) {
+        }
+
+        @Override
+        public void onTimeout() {
+        }
+
+        @Override
+        public void onLevel(int minMoves, Source source, long nanos) {
+        }
+    };
+}
@@ -0,0 +1,200 @@
+package com.example.labrite;
+
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+// Счётчики генерации: сколько уровней выдано, сколько кандидатов построено,
+// сколько шагов ensureMinMoves и вызовов решателя на них ушло, почему
+// кандидаты отброшены, как распределено итоговое число ходов и сколько
+// длились подбор уровня и отдельный поиск. Все счётчики без блокировок,
+// пишутся из любых потоков генерации и читаются в любой момент.
+final class GenerationStats implements GenerationMetrics {
+
+    // Гистограмма minMoves: последняя корзина собирает всё, что больше
+    static final int MAX_MOVES_BUCKET = 63;
+
+    private final LongAdder levels = new LongAdder();
+    private final LongAdder[] levelsBySource = new LongAdder[Source.values().length];
+    private final LongAdder attempts = new LongAdder();
+    private final LongAdder ensureIterations = new LongAdder();
+    private final LongAdder solverCalls = new LongAdder();
+    private final LongAdder timeouts = new LongAdder();
+    // Выданные уровни, у которых цель на деле недостижима
+    private final LongAdder unsolvableLevels = new LongAdder();
+    private final LongAdder generationNanos = new LongAdder();
+    private final LongAdder[] rejections = new LongAdder[Rejection.values().length];
+    private final AtomicLongArray minMovesHistogram = new AtomicLongArray(MAX_MOVES_BUCKET + 1);
+    private final LatencyHistogram levelLatency = new LatencyHistogram();
+    private final LatencyHistogram solverLatency = new LatencyHistogram();
+
+    GenerationStats() {
+        for (int i = 0; i < rejections.length; i++) {
+            rejections[i] = new LongAdder();
+        }
+        for (int i = 0; i < levelsBySource.length; i++) {
+            levelsBySource[i] = new LongAdder();
+        }
+    }
+
+    @Override
+    public void onAttempt() {
+        attempts.increment();
+    }
+
+    @Override
+    public void onEnsureIteration() {
+        ensureIterations.increment();
+    }
+
+    @Override
+    public void onSolverCall(long nanos) {
+        solverCalls.increment();
+        solverLatency.record(nanos);
+    }
+
+    @Override
+    public void onRejected(Rejection reason) {
+        rejections[reason.ordinal()].increment();
+    }
+
+    @Override
+    public void onTimeout() {
+        timeouts.increment();
+    }
+
+    @Override
+    public void onLevel(int minMoves, Source source, long nanos) {
+        levels.increment();
+        levelsBySource[source.ordinal()].increment();
+        generationNanos.add(nanos);
+        levelLatency.record(nanos);
+        if (minMoves < 0) {
+            unsolvableLevels.increment();
+            return;
+        }
+        minMovesHistogram.incrementAndGet(Math.min(MAX_MOVES_BUCKET, minMoves));
+    }
+
+    long getLevels() {
+        return levels.sum();
+    }
+
+    long getLevels(Source source) {
+        return levelsBySource[source.ordinal()].sum();
+    }
+
+    long getBackwardLevels() {
+        return getLevels(Source.BACKWARD);
+    }
+
+    long getAttempts() {
+        return attempts.sum();
+    }
+
+    long getEnsureIterations() {
+        return ensureIterations.sum();
+    }
+
+    long getSolverCalls() {
+        return solverCalls.sum();
+    }
+
+    long getTimeouts() {
+        return timeouts.sum();
+    }
+
+    long getUnsolvableLevels() {
+        return unsolvableLevels.sum();
+    }
+
+    long getGenerationNanos() {
+        return generationNanos.sum();
+    }
+
+    long getRejections(Rejection reason) {
+        return rejections[reason.ordinal()].sum();
+    }
+
+    long getMinMovesCount(int moves) {
+        return minMovesHistogram.get(Math.max(0, Math.min(MAX_MOVES_BUCKET, moves)));
+    }
+
+    LatencyHistogram getLevelLatency() {
+        return levelLatency;
+    }
+
+    LatencyHistogram getSolverLatency() {
+        return solverLatency;
+    }
+
+    void reset() {
+        levels.reset();
+        for (LongAdder source : levelsBySource) {
+            source.reset();
+        }
+        attempts.reset();
+        ensureIterations.reset();
+        solverCalls.reset();
+        timeouts.reset();
+        unsolvableLevels.reset();
+        generationNanos.reset();
+        for (LongAdder rejection : rejections) {
+            rejection.reset();
+        }
+        for (int i = 0; i <= MAX_MOVES_BUCKET; i++) {
+            minMovesHistogram.set(i, 0);
+        }
+        levelLatency.reset();
+        solverLatency.reset();
+    }
+
+    // Текстовый отчёт для экрана диагностики, выгрузки в файл и пакетного генератора.
+    // Счётчики читаются по одному, поэтому во время генерации отчёт может
+    // слегка расходиться сам с собой — для диагностики этого достаточно.
+    String formatReport() {
+        StringBuilder out = new StringBuilder();
+        long levelCount = getLevels();
+        double perLevel = Math.max(1, levelCount);
+        out.append(String.format(Locale.ROOT, "levels: %d (backward %d, search %d, fallback %d)%n",
+                levelCount, getLevels(Source.BACKWARD), getLevels(Source.SEARCH), getLevels(Source.FALLBACK)));
+        out.append(String.format(Locale.ROOT, "timeouts: %d, unsolvable levels shown: %d%n",
+                getTimeouts(), getUnsolvableLevels()));
+        out.append(String.format(Locale.ROOT,
+                "per level: %.2f attempts, %.1f ensureMinMoves steps, %.2f solver calls%n",
+                getAttempts() / perLevel, getEnsureIterations() / perLevel, getSolverCalls() / perLevel));
+        out.append("rejections:");
+        for (Rejection reason : Rejection.values()) {
+            out.append(' ').append(reason).append('=').append(getRejections(reason));
+        }
+        out.append(String.format("%n"));
+        appendLatency(out, "level latency", levelLatency);
+        appendLatency(out, "solver latency", solverLatency);
+
+        long peak = 1;
+        for (int moves = 0; moves <= MAX_MOVES_BUCKET; moves++) {
+            peak = Math.max(peak, getMinMovesCount(moves));
+        }
+        out.append(String.format("minMoves histogram:%n"));
+        for (int moves = 0; moves <= MAX_MOVES_BUCKET; moves++) {
+            long n = getMinMovesCount(moves);
+            if (n == 0) {
+                continue;
+            }
+            StringBuilder bar = new StringBuilder();
+            for (long k = 0, width = Math.max(1, n * 40 / peak); k < width; k++) {
+                bar.append('#');
+            }
+            out.append(String.format(Locale.ROOT, "%4s | %-40s %d%n",
+                    moves == MAX_MOVES_BUCKET ? moves + "+" : Integer.toString(moves), bar, n));
+        }
+        return out.toString();
+    }
+
+    private static void appendLatency(StringBuilder out, String name, LatencyHistogram histogram) {
+        out.append(String.format(Locale.ROOT,
+                "%s: n=%d p50<=%d us p95<=%d us p99<=%d us max=%d us%n", name, histogram.getCount(),
+                histogram.percentileMicros(50), histogram.percentileMicros(95),
+                histogram.percentileMicros(99), histogram.getMaxNanos() / 1000));
+    }
+}
@@ -0,0 +1,79 @@
+package com.example.labrite;
+
+// Подсказки «следующий оптимальный ход» для текущего уровня. Оптимальный
+// путь решается один раз и запоминается списком клеток; пока игрок стоит
+// на этом пути, ответ берётся из кэша, а новый поиск запускается только
+// когда игрок с пути сошёл. Используется из UI-потока.
+final class HintCache {
+
+    private final SlideSolver solver = new SlideSolver();
+    private Level level;
+    // pathCells[i] — клетка перед ходом pathMoves[i]; последняя клетка — цель
+    // (или единственная клетка, из которой цель недостижима)
+    private int[] pathCells = new int[0];
+    private Direction[] pathMoves = new Direction[0];
+    private int solveCount;
+
+    // Следующий оптимальный ход из (x, y) или null, если цель уже достигнута
+    // или недостижима
+    Direction nextMove(Level current, int x, int y) {
+        if (current != level) {
+            level = current;
+            pathCells = new int[0];
+            pathMoves = new Direction[0];
+        }
+        SlideTable table = current.table;
+        int cell = table.cell(x, y);
+        int target = table.cell(current.targetX, current.targetY);
+        if (cell == target) {
+            return null;
+        }
+
+        int index = indexOnPath(cell);
+        if (index < 0) {
+            solve(table, cell, target);
+            index = 0;
+        }
+        return index < pathMoves.length ? pathMoves[index] : null;
+    }
+
+    // Сколько раз пришлось решать заново (для проверки, что кэш работает)
+    int getSolveCount() {
+        return solveCount;
+    }
+
+    private int indexOnPath(int cell) {
+        // Путь короткий — линейный поиск дешевле любой карты клеток
+        for (int i = 0; i < pathCells.length; i++) {
+            if (pathCells[i] == cell) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private void solve(SlideTable table, int start, int target) {
+        solveCount++;
+        Direction[] moves;
+        Tracer.beginSection("Hint.solve");
+        try {
+            solver.minMoves(table, start, target);
+            moves = solver.pathTo(target);
+        } finally {
+            Tracer.endSection();
+        }
+        if (moves == null) {
+            // С этой клетки цели не достичь: запоминаем её, чтобы не искать повторно
+            pathCells = new int[] {start};
+            pathMoves = new Direction[0];
+            return;
+        }
+        int[] cells = new int[moves.length + 1];
+        cells[0] = start;
+        for (int i = 0; i < moves.length; i++) {
+            cells[i + 1] = table.stop(cells[i], moves[i]);
+        }
+        pathCells = cells;
+        pathMoves = moves;
+    }
+}
@@ -0,0 +1,210 @@
+package com.example.labrite;
+
+import java.util.Arrays;
+
+// Информированный поиск по таблице переходов. Эвристика для скольжений:
+// 0 — уже на цели, 1 — цель в той же строке или столбце, иначе 2 (один ход
+// меняет только одну координату). Она допустима и согласована, поэтому
+// A* с закрытым множеством и IDA* возвращают то же минимальное число
+// ходов, что и BFS.
+// A* держит открытое множество в корзинах по f (f — небольшое целое),
+// IDA* обходит в глубину с растущим порогом и кэшем лучших g, так что ему
+// не нужны ни очередь, ни корзины, только стек глубины пути. Оба варианта без рекурсии и
+// без аллокаций после прогрева.
+final class InformedSolver {
+
+    private int[] g = new int[0];
+    private int[] stamp = new int[0];
+    private int generation;
+    // Корзины A*: односвязные стеки записей по значению f
+    private int[] bucketHead = new int[0];
+    private int[] entryCell = new int[0];
+    private int[] entryNext = new int[0];
+    // Стек обхода IDA*: клетка, её g и следующее направление для перебора
+    private int[] stackCell = new int[0];
+    private int[] stackDirection = new int[0];
+    // Лучший g клетки за все итерации IDA* текущего вызова
+    private int[] best = new int[0];
+    private int[] bestStamp = new int[0];
+    private int bestGeneration;
+    private int expandedCount;
+
+    // Минимальное число ходов A*, или -1, если цель недостижима
+    int minMovesAStar(SlideTable table, int start, int target) {
+        int cells = table.getWidth() * table.getHeight();
+        ensureCapacity(cells);
+        int mark = nextGeneration();
+        int width = table.getWidth();
+        int targetX = target % width;
+        int targetY = target / width;
+        expandedCount = 0;
+
+        // f не превосходит длины простого пути плюс эвристика
+        int maxF = cells + 2;
+        if (bucketHead.length < maxF + 1) {
+            bucketHead = new int[maxF + 1];
+        }
+        Arrays.fill(bucketHead, 0, maxF + 1, -1);
+        g[start] = 0;
+        stamp[start] = mark;
+        int f = heuristic(start, width, targetX, targetY);
+        int entries = push(0, f, start);
+
+        while (f <= maxF) {
+            int entry = bucketHead[f];
+            if (entry < 0) {
+                f++;
+                continue;
+            }
+            bucketHead[f] = entryNext[entry];
+            int current = entryCell[entry];
+            int currentG = g[current];
+            // Запись устарела: клетка уже закрыта или найдена короче
+            if (currentG < 0 || currentG + heuristic(current, width, targetX, targetY) != f) {
+                continue;
+            }
+            if (current == target) {
+                return currentG;
+            }
+            // Отрицательный g помечает закрытую клетку
+            g[current] = -1 - currentG;
+            expandedCount++;
+            int nextG = currentG + 1;
+            for (int d = 0; d < SlideTable.DIRECTIONS; d++) {
+                int next = table.stop(current, d);
+                if (stamp[next] == mark && (g[next] < 0 || g[next] <= nextG)) {
+                    continue;
+                }
+                stamp[next] = mark;
+                g[next] = nextG;
+                int nextF = nextG + heuristic(next, width, targetX, targetY);
+                // Эвристика согласована, поэтому nextF >= f и корзины
+                // просматриваются только вперёд
+                entries = push(entries, nextF, next);
+            }
+        }
+        return -1;
+    }
+
+    // Минимальное число ходов IDA*, или -1, если цель недостижима
+    int minMovesIdaStar(SlideTable table, int start, int target) {
+        int cells = table.getWidth() * table.getHeight();
+        ensureCapacity(cells);
+        int width = table.getWidth();
+        int targetX = target % width;
+        int targetY = target / width;
+        expandedCount = 0;
+
+        if (++bestGeneration == 0) {
+            Arrays.fill(bestStamp, 0);
+            bestGeneration = 1;
+        }
+        int callMark = bestGeneration;
+        best[start] = 0;
+        bestStamp[start] = callMark;
+
+        int threshold = heuristic(start, width, targetX, targetY);
+        while (true) {
+            int mark = nextGeneration();
+            int nextThreshold = Integer.MAX_VALUE;
+            int depth = 0;
+            stackCell[0] = start;
+            stackDirection[0] = 0;
+            g[start] = 0;
+            stamp[start] = mark;
+
+            while (depth >= 0) {
+                int current = stackCell[depth];
+                if (stackDirection[depth] == 0) {
+                    int f = depth + heuristic(current, width, targetX, targetY);
+                    if (f > threshold) {
+                        nextThreshold = Math.min(nextThreshold, f);
+                        depth--;
+                        continue;
+                    }
+                    if (current == target) {
+                        return depth;
+                    }
+                    expandedCount++;
+                }
+                int d = stackDirection[depth];
+                if (d == SlideTable.DIRECTIONS) {
+                    depth--;
+                    continue;
+                }
+                stackDirection[depth] = d + 1;
+                int next = table.stop(current, d);
+                int nextG = depth + 1;
+                // Кэш g: если в клетку уже приходили короче (на любой итерации),
+                // этот путь не может быть частью оптимального — более короткий
+                // префикс переберётся сам. Если в этой итерации уже приходили не
+                // дольше, всё достижимое отсюда уже перебрано с большим запасом.
+                if (bestStamp[next] == callMark && best[next] < nextG) {
+                    continue;
+                }
+                if (stamp[next] == mark && g[next] <= nextG) {
+                    continue;
+                }
+                bestStamp[next] = callMark;
+                best[next] = nextG;
+                stamp[next] = mark;
+                g[next] = nextG;
+                depth++;
+                stackCell[depth] = next;
+                stackDirection[depth] = 0;
+            }
+            if (nextThreshold == Integer.MAX_VALUE) {
+                return -1;
+            }
+            threshold = nextThreshold;
+        }
+    }
+
+    // Сколько клеток было раскрыто в последнем вызове
+    int getExpandedCount() {
+        return expandedCount;
+    }
+
+    static int heuristic(int cell, int width, int targetX, int targetY) {
+        int x = cell % width;
+        int y = cell / width;
+        if (x == targetX && y == targetY) {
+            return 0;
+        }
+        return x == targetX || y == targetY ? 1 : 2;
+    }
+
+    private int push(int entries, int f, int cell) {
+        if (entries == entryCell.length) {
+            int capacity = Math.max(16, entries * 2);
+            entryCell = Arrays.copyOf(entryCell, capacity);
+            entryNext = Arrays.copyOf(entryNext, capacity);
+        }
+        entryCell[entries] = cell;
+        entryNext[entries] = bucketHead[f];
+        bucketHead[f] = entries;
+        return entries + 1;
+    }
+
+    private void ensureCapacity(int cells) {
+        if (g.length < cells) {
+            g = new int[cells];
+            stamp = new int[cells];
+            // Глубина простого пути не превосходит числа клеток
+            stackCell = new int[cells + 1];
+            stackDirection = new int[cells + 1];
+            best = new int[cells];
+            bestStamp = new int[cells];
+            generation = 0;
+            bestGeneration = 0;
+        }
+    }
+
+    private int nextGeneration() {
+        if (++generation == 0) {
+            Arrays.fill(stamp, 0);
+            generation = 1;
+        }
+        return generation;
+    }
+}
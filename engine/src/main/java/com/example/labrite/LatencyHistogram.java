@@ -0,0 +1,79 @@
+package com.example.labrite;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+// Гистограмма длительностей с корзинами по степеням двойки в микросекундах:
+// корзина i держит значения из [2^(i-1), 2^i) мкс, корзина 0 — всё короче
+// микросекунды. Запись — один инкремент без блокировок, так что её можно
+// оставлять включённой в релизе. Перцентили оцениваются сверху, по правой
+// границе корзины; максимум хранится точно.
+final class LatencyHistogram {
+
+    // 2^39 мкс — около шести суток, дальше всё в последней корзине
+    static final int BUCKETS = 40;
+
+    private final AtomicLongArray buckets = new AtomicLongArray(BUCKETS);
+    private final AtomicLong maxNanos = new AtomicLong();
+
+    void record(long nanos) {
+        long micros = Math.max(0, nanos) / 1000;
+        int bucket = Math.min(BUCKETS - 1, 64 - Long.numberOfLeadingZeros(micros));
+        buckets.incrementAndGet(bucket);
+        long max = maxNanos.get();
+        while (nanos > max && !maxNanos.compareAndSet(max, nanos)) {
+            max = maxNanos.get();
+        }
+    }
+
+    long getCount() {
+        long count = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            count += buckets.get(i);
+        }
+        return count;
+    }
+
+    long getBucketCount(int bucket) {
+        return buckets.get(bucket);
+    }
+
+    // Правая граница корзины в микросекундах
+    static long bucketUpperMicros(int bucket) {
+        return 1L << bucket;
+    }
+
+    long getMaxNanos() {
+        return maxNanos.get();
+    }
+
+    // Оценка перцентиля (0..100) в микросекундах; 0, если записей нет
+    long percentileMicros(double percentile) {
+        long[] counts = new long[BUCKETS];
+        long total = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            counts[i] = buckets.get(i);
+            total += counts[i];
+        }
+        if (total == 0) {
+            return 0;
+        }
+        long rank = (long) Math.ceil(total * Math.min(100.0, Math.max(0.0, percentile)) / 100.0);
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += counts[i];
+            if (seen >= Math.max(1, rank)) {
+                // Оценка не больше точного максимума
+                return Math.min(bucketUpperMicros(i), Math.max(1, maxNanos.get() / 1000));
+            }
+        }
+        return maxNanos.get() / 1000;
+    }
+
+    void reset() {
+        for (int i = 0; i < BUCKETS; i++) {
+            buckets.set(i, 0);
+        }
+        maxNanos.set(0);
+    }
+}
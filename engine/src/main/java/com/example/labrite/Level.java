@@ -0,0 +1,90 @@
+package com.example.labrite;
+
+import java.util.Arrays;
+
+// Готовый уровень: поле, таблица переходов, старт, цель и число ходов.
+// В режиме нескольких шаров у уровня несколько стартов и столько же целей
+// (клетки, упакованные как y * width + x); уровень пройден, когда шары
+// стоят ровно на целях, неважно какой на какой. startX/targetX — первый шар.
+// Создаётся генератором в фоне и дальше только читается: поле замораживается
+// в конструкторе, а все поля final, так что снимок можно безопасно
+// передавать между потоками.
+final class Level {
+
+    final LevelGrid grid;
+    final SlideTable table;
+    final int startX;
+    final int startY;
+    final int targetX;
+    final int targetY;
+    final int minMoves;
+    final int movesLeft;
+    // Зерно уровня и номер попытки генератора, из которой он построен. Какая
+    // попытка победит, зависит от сроков перебора, поэтому одного зерна мало:
+    // ParallelLevelGenerator.rebuild(seed, attempt) строит ровно этот уровень.
+    // NO_ATTEMPT — уровень задан одним зерном (несколько шаров) или не из генератора.
+    final long seed;
+    final int attempt;
+    // Копии, сделанные в конструкторе; после него массивы не меняются
+    final int[] pieceStarts;
+    // Целевые клетки по возрастанию
+    final int[] pieceTargets;
+    // Отпечаток стен, стартов и целей: по нему повтор партии проверяет, что
+    // заново построенный уровень — тот самый, который видел игрок
+    final long fingerprint;
+
+    static final int NO_ATTEMPT = Integer.MIN_VALUE;
+
+    Level(LevelGrid grid, SlideTable table, int startX, int startY, int targetX, int targetY,
+          int minMoves, int movesLeft, long seed) {
+        this(grid, table, startX, startY, targetX, targetY, minMoves, movesLeft, seed, NO_ATTEMPT);
+    }
+
+    Level(LevelGrid grid, SlideTable table, int startX, int startY, int targetX, int targetY,
+          int minMoves, int movesLeft, long seed, int attempt) {
+        this(grid, table, new int[] {table.cell(startX, startY)}, new int[] {table.cell(targetX, targetY)},
+                minMoves, movesLeft, seed, attempt);
+    }
+
+    Level(LevelGrid grid, SlideTable table, int[] pieceStarts, int[] pieceTargets,
+          int minMoves, int movesLeft, long seed, int attempt) {
+        if (pieceStarts.length != pieceTargets.length || pieceStarts.length == 0) {
+            throw new IllegalArgumentException("Pieces " + pieceStarts.length + ", targets " + pieceTargets.length);
+        }
+        grid.freeze();
+        this.grid = grid;
+        this.table = table;
+        this.pieceStarts = pieceStarts.clone();
+        this.pieceTargets = pieceTargets.clone();
+        Arrays.sort(this.pieceTargets);
+        this.startX = table.cellX(pieceStarts[0]);
+        this.startY = table.cellY(pieceStarts[0]);
+        this.targetX = table.cellX(this.pieceTargets[0]);
+        this.targetY = table.cellY(this.pieceTargets[0]);
+        this.minMoves = minMoves;
+        this.movesLeft = movesLeft;
+        this.seed = seed;
+        this.attempt = attempt;
+        this.fingerprint = fingerprint(grid, this.pieceStarts, this.pieceTargets);
+    }
+
+    private static long fingerprint(LevelGrid grid, int[] starts, int[] targets) {
+        long hash = grid.wallHash();
+        for (int i = 0; i < starts.length; i++) {
+            hash = LevelSeeds.mix64(hash ^ ((long) starts[i] << 32 | targets[i]));
+        }
+        return hash;
+    }
+
+    int getPieceCount() {
+        return pieceStarts.length;
+    }
+
+    int getWidth() {
+        return grid.getWidth();
+    }
+
+    int getHeight() {
+        return grid.getHeight();
+    }
+}
@@ -0,0 +1,394 @@
+package com.example.labrite;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+import java.util.function.BooleanSupplier;
+
+// Генератор уровней. Каждый экземпляр работает только со своим полем,
+// таблицей переходов и решателем, поэтому несколько генераторов могут
+// строить кандидатов параллельно в разных потоках. Вся случайность берётся
+// из явного зерна, так что кандидат полностью воспроизводим.
+final class LevelGenerator {
+
+    private final int gridWidth;
+    private final int gridHeight;
+    private final LevelGrid walls;
+    private final SlideTable slideTable;
+    // Старт по умолчанию в углу; обратное построение выбирает его само
+    private int startX = 1;
+    private int startY = 1;
+    private final int targetX;
+    private final int targetY;
+    private int minMovesToTarget = -1;
+    private SplittableRandom random = new SplittableRandom(0);
+
+    private final SlideSolver solver = new SlideSolver();
+    private final BidirectionalSlideSolver bidirectionalSolver = new BidirectionalSlideSolver();
+    private final DynamicLevel dynamicLevel;
+    // С какой площади поля выгоднее искать путь с двух сторон
+    private static final int BIDIRECTIONAL_MIN_CELLS = 32 * 32;
+    private static final int BASE_INNER_AREA = 8 * 8;
+    // Клетки, через которые проходит построенная цепочка ходов: на них не ставим стопоры
+    private final boolean[] reserved;
+
+    // Какой решатель считает минимум ходов. AUTO выбирает по площади поля:
+    // на полях этой игры эвристика 0/1/2 почти не отсекает клетки, поэтому
+    // A* и IDA* доступны явно, но по умолчанию не используются
+    enum SolverKind { AUTO, BFS, BIDIRECTIONAL, A_STAR, IDA_STAR }
+
+    private SolverKind solverKind = SolverKind.AUTO;
+    private InformedSolver informedSolver;
+
+    // Проверяется внутри циклов попыток, чтобы проигравший кандидат не досчитывал зря
+    private BooleanSupplier cancellation;
+    private GenerationMetrics metrics = GenerationMetrics.NONE;
+
+    LevelGenerator(int gridWidth, int gridHeight) {
+        this.gridWidth = gridWidth;
+        this.gridHeight = gridHeight;
+        this.walls = new LevelGrid(gridWidth, gridHeight);
+        this.slideTable = new SlideTable(gridWidth, gridHeight);
+        this.dynamicLevel = new DynamicLevel(walls, slideTable);
+        this.reserved = new boolean[gridWidth * gridHeight];
+        this.targetX = gridWidth - 2;
+        this.targetY = gridHeight - 2;
+    }
+
+    int getGridWidth() {
+        return gridWidth;
+    }
+
+    int getGridHeight() {
+        return gridHeight;
+    }
+
+    void setSolverKind(SolverKind solverKind) {
+        this.solverKind = solverKind;
+    }
+
+    private InformedSolver informedSolver() {
+        if (informedSolver == null) {
+            informedSolver = new InformedSolver();
+        }
+        return informedSolver;
+    }
+
+    void setCancellation(BooleanSupplier cancellation) {
+        this.cancellation = cancellation;
+    }
+
+    void setMetrics(GenerationMetrics metrics) {
+        this.metrics = metrics != null ? metrics : GenerationMetrics.NONE;
+    }
+
+    private boolean isCancelled() {
+        return cancellation != null && cancellation.getAsBoolean();
+    }
+
+    // Строит одного кандидата из зерна и возвращает минимальное число ходов
+    // (-1 если цель недостижима)
+    int generateCandidate(int level, long seed) {
+        generateLevel(level, seed);
+        return calculateMinMoves();
+    }
+
+    // Сложность, которую обратное построение пытается получить точно
+    static int targetMovesFor(int level) {
+        if (level <= 8) {
+            return Math.min(4 + level / 2, 9);
+        }
+        return Math.min(8 + (level - 8) / 3, 16);
+    }
+
+    // Строит уровень от цели назад: цепочка ходов с поставленными стопорами
+    // уводит шар от цели, затем один обратный BFS даёт точное расстояние до
+    // цели из каждой клетки, и старт выбирается среди клеток ровно на
+    // targetMoves ходов. Прямой поиск один раз подтверждает результат.
+    // Возвращает targetMoves или -1, если на этом поле такой клетки нет.
+    int generateBackward(int level, long seed, int targetMoves) {
+        random = new SplittableRandom(seed);
+        walls.clear();
+        walls.fillBorder();
+        Arrays.fill(reserved, false);
+        int target = slideTable.cell(targetX, targetY);
+        reserved[target] = true;
+
+        // Перекрытые прямые коридоры вдоль кромок — иначе почти любая клетка
+        // в двух ходах от угловой цели
+        placeEdgeBlockers();
+
+        // Цепочка назад от цели: каждое звено — ход, который останавливается
+        // в текущей клетке. Звеньев с запасом, потому что поздние стопоры
+        // могут срезать часть цепочки.
+        int current = target;
+        int previousAxis = -1;
+        int links = targetMoves + targetMoves / 2 + 2;
+        for (int link = 0; link < links && !isCancelled(); link++) {
+            int offset = random.nextInt(SlideTable.DIRECTIONS);
+            int next = -1;
+            for (int k = 0; k < SlideTable.DIRECTIONS && next < 0; k++) {
+                int d = (offset + k) % SlideTable.DIRECTIONS;
+                // Два хода подряд вдоль одной оси ничего не дают
+                if (d / 2 == previousAxis) {
+                    continue;
+                }
+                next = extendChain(current, Direction.values()[d]);
+                if (next >= 0) {
+                    previousAxis = d / 2;
+                }
+            }
+            if (next < 0) {
+                break;
+            }
+            current = next;
+        }
+
+        // Та же россыпь препятствий, что и у перебора, но мимо клеток цепочки
+        int innerArea = (gridWidth - 2) * (gridHeight - 2);
+        int obstacleCount = (int) ((long) Math.min(level * 3, 20) * innerArea / BASE_INNER_AREA);
+        for (int i = 0; i < obstacleCount; i++) {
+            int x = random.nextInt(gridWidth - 2) + 1;
+            int y = random.nextInt(gridHeight - 2) + 1;
+            if (!reserved[slideTable.cell(x, y)]) {
+                walls.setWall(x, y);
+            }
+        }
+        rebuildSlideTable();
+
+        // Точные расстояния до цели из всех клеток — один обратный поиск.
+        // Если срезки съели глубину, наращиваем цепочку от самой дальней клетки:
+        // каждый такой шаг стоит ещё одного обратного поиска.
+        int farthest = solver.distancesTo(slideTable, target);
+        for (int round = 0; farthest < targetMoves && round < 2 * targetMoves && !isCancelled(); round++) {
+            int from = pickCellAtDistance(farthest);
+            int offset = random.nextInt(SlideTable.DIRECTIONS);
+            int next = -1;
+            for (int k = 0; k < SlideTable.DIRECTIONS && next < 0; k++) {
+                next = extendChain(from, Direction.values()[(offset + k) % SlideTable.DIRECTIONS]);
+            }
+            if (next >= 0) {
+                current = next;
+                rebuildSlideTable();
+            }
+            farthest = solver.distancesTo(slideTable, target);
+        }
+        if (farthest < targetMoves) {
+            return -1;
+        }
+        int start = solver.distanceFrom(current) == targetMoves ? current : pickCellAtDistance(targetMoves);
+        if (start < 0) {
+            return -1;
+        }
+        startX = slideTable.cellX(start);
+        startY = slideTable.cellY(start);
+
+        // Контрольный прямой поиск
+        minMovesToTarget = calculateMinMoves();
+        return minMovesToTarget == targetMoves ? targetMoves : -1;
+    }
+
+    // Добавляет звено: шар, катящийся в направлении direction, должен
+    // остановиться в current. За current ставится стопор (если там не стена),
+    // а новое звено начинается в случайной клетке свободного отрезка позади.
+    private int extendChain(int current, Direction direction) {
+        int x = slideTable.cellX(current);
+        int y = slideTable.cellY(current);
+        int stopperX = x + direction.dx;
+        int stopperY = y + direction.dy;
+        boolean needsStopper = !walls.isWall(stopperX, stopperY);
+        if (needsStopper && (reserved[slideTable.cell(stopperX, stopperY)]
+                || stopperX <= 0 || stopperY <= 0 || stopperX >= gridWidth - 1 || stopperY >= gridHeight - 1)) {
+            return -1;
+        }
+        int run = 0;
+        while (walls.isFree(x - direction.dx * (run + 1), y - direction.dy * (run + 1))) {
+            run++;
+        }
+        if (run == 0) {
+            return -1;
+        }
+        if (needsStopper) {
+            walls.setWall(stopperX, stopperY);
+        }
+        int length = 1 + random.nextInt(run);
+        for (int i = 1; i <= length; i++) {
+            reserved[slideTable.cell(x - direction.dx * i, y - direction.dy * i)] = true;
+        }
+        return slideTable.cell(x - direction.dx * length, y - direction.dy * length);
+    }
+
+    // Случайная свободная клетка ровно на distance ходов от цели или -1
+    private int pickCellAtDistance(int distance) {
+        int chosen = -1;
+        int seen = 0;
+        for (int cell = 0; cell < gridWidth * gridHeight; cell++) {
+            if (solver.distanceFrom(cell) == distance) {
+                // Равновероятный выбор за один проход
+                seen++;
+                if (random.nextInt(seen) == 0) {
+                    chosen = cell;
+                }
+            }
+        }
+        return chosen;
+    }
+
+    // Только стены текущего поля, без таблицы и снимка уровня
+    void copyWallsTo(LevelGrid target) {
+        target.copyFrom(walls);
+    }
+
+    // Снимок текущего поля, не зависящий от дальнейшей работы генератора
+    Level snapshot(long seed, int minMoves, int movesLeft) {
+        return snapshot(seed, Level.NO_ATTEMPT, minMoves, movesLeft);
+    }
+
+    Level snapshot(long seed, int attempt, int minMoves, int movesLeft) {
+        LevelGrid grid = walls.copy();
+        SlideTable table = new SlideTable(gridWidth, gridHeight);
+        table.rebuild(grid);
+        return new Level(grid, table, startX, startY, targetX, targetY, minMoves, movesLeft, seed, attempt);
+    }
+
+    void generateLevel(int level, long seed) {
+        random = new SplittableRandom(seed);
+        startX = 1;
+        startY = 1;
+
+        // Очищаем лабиринт
+        walls.clear();
+        
+        // Обычные края в одну клетку чтобы не выглядели толстыми
+        walls.fillBorder();
+        
+        // Генерируем специальные паттерны для разных уровней
+        generateLevelPattern(level);
+        rebuildSlideTable();
+    }
+    
+    private void generateLevelPattern(int level) {
+        // Для уровней 1–8 используем рандомную генерацию с анти-двухходовым контролем
+        if (level <= 8) {
+            generateRandomWithAntiTwoMove(level);
+            ensureMinMoves(Math.min(4 + level / 2, 9), 120);
+            return;
+        }
+        // 9+ — смешанный режим (пока оставим случайный с усилением сложности)
+        generateRandomLevel(level);
+        rebuildSlideTable();
+        ensureMinMoves(8, 150);
+    }
+
+    private void generateRandomWithAntiTwoMove(int level) {
+        int attempts = 0;
+        do {
+            // базовая случайная генерация
+            generateRandomLevel(level);
+            rebuildSlideTable();
+            // блокируем прямые коридоры по краям (решение за 2 хода Right+Down или Down+Right)
+            placeEdgeBlockers();
+            minMovesToTarget = calculateMinMoves();
+            attempts++;
+        } while ((minMovesToTarget < 4 || minMovesToTarget == -1) && attempts < 40 && !isCancelled());
+    }
+
+    private void placeEdgeBlockers() {
+        // Не ставим на старт/финиш
+        // блок по верхней кромке между стартом и правым краем
+        walls.setWall(Math.max(2, gridWidth / 2), 1);
+        // блок по левой кромке между стартом и нижним краем
+        walls.setWall(1, Math.max(2, gridHeight / 2));
+        // блок по правой кромке между верхом и целью
+        walls.setWall(gridWidth - 2, Math.max(2, gridHeight / 2));
+        // блок по нижней кромке между левым и целью
+        walls.setWall(Math.max(2, gridWidth / 2), gridHeight - 2);
+        // Гарантируем, что рядом со стартом/целью свободно
+        walls.clearWall(1, 1);
+        walls.clearWall(gridWidth - 2, gridHeight - 2);
+        walls.clearWall(2, 1); walls.clearWall(1, 2);
+        walls.clearWall(gridWidth - 3, gridHeight - 2); walls.clearWall(gridWidth - 2, gridHeight - 3);
+        rebuildSlideTable();
+    }
+
+    private void rebuildSlideTable() {
+        slideTable.rebuild(walls);
+    }
+    
+    private void generateRandomLevel(int level) {
+        // Плотность препятствий та же, что на поле 10x10 (внутренняя область 8x8),
+        // поэтому их число растёт пропорционально площади
+        int innerArea = (gridWidth - 2) * (gridHeight - 2);
+        int obstacleCount = (int) ((long) Math.min(level * 3, 20) * innerArea / BASE_INNER_AREA);
+        
+        for (int i = 0; i < obstacleCount; i++) {
+            int x = random.nextInt(gridWidth - 2) + 1;
+            int y = random.nextInt(gridHeight - 2) + 1;
+            
+            // Не ставим препятствие на стартовую или конечную позицию
+            if ((x == 1 && y == 1) || (x == gridWidth - 2 && y == gridHeight - 2)) {
+                continue;
+            }
+            
+            walls.setWall(x, y);
+        }
+    }
+
+    // Повышает минимальное число ходов до порога, добавляя перегородки, сохраняя проходимость
+    private void ensureMinMoves(int minRequiredMoves, int maxAttempts) {
+        // Одна новая стена чинит расстояние инкрементально, а не полным BFS
+        dynamicLevel.reset(slideTable.cell(startX, startY), slideTable.cell(targetX, targetY));
+        int attempts = 0;
+        while (attempts < maxAttempts && !isCancelled()) {
+            metrics.onEnsureIteration();
+            minMovesToTarget = dynamicLevel.minMoves();
+            if (minMovesToTarget >= minRequiredMoves && minMovesToTarget != -1) {
+                return;
+            }
+            // Добавляем небольшую перегородку в случайном месте, не перекрывая старт/финиш
+            int x = random.nextInt(gridWidth - 4) + 2;
+            int y = random.nextInt(gridHeight - 4) + 2;
+            if (!walls.isWall(x, y) && !(x == 1 && y == 1) && !(x == gridWidth - 2 && y == gridHeight - 2)) {
+                // Новая стена меняет остановки только в своей строке и столбце
+                dynamicLevel.addWall(x, y);
+            }
+            attempts++;
+        }
+        // финальная проверка
+        minMovesToTarget = dynamicLevel.minMoves();
+    }
+    
+    int calculateMinMoves() {
+        Tracer.beginSection("LevelGen.solve");
+        try {
+            long startNanos = System.nanoTime();
+            int minMoves = solveMinMoves();
+            metrics.onSolverCall(System.nanoTime() - startNanos);
+            return minMoves;
+        } finally {
+            Tracer.endSection();
+        }
+    }
+
+    private int solveMinMoves() {
+        // BFS по таблице переходов без аллокаций на вызов
+        int start = slideTable.cell(startX, startY);
+        int target = slideTable.cell(targetX, targetY);
+        switch (solverKind) {
+            case BFS:
+                return solver.minMoves(slideTable, start, target);
+            case BIDIRECTIONAL:
+                return bidirectionalSolver.minMoves(slideTable, start, target);
+            case A_STAR:
+                return informedSolver().minMovesAStar(slideTable, start, target);
+            case IDA_STAR:
+                return informedSolver().minMovesIdaStar(slideTable, start, target);
+            default:
+                break;
+        }
+        if (gridWidth * gridHeight >= BIDIRECTIONAL_MIN_CELLS) {
+            // На больших полях фронт обычного BFS разрастается раньше, чем доходит до цели
+            return bidirectionalSolver.minMoves(slideTable, start, target);
+        }
+        return solver.minMoves(slideTable, start, target);
+    }
+}
@@ -0,0 +1,209 @@
+package com.example.labrite;
+
+import java.util.Arrays;
+
+// Упакованное поле уровня: один бит на клетку, 1 = стена.
+// Строки лежат подряд словами long, параллельно ведётся транспонированная
+// копия по столбцам, чтобы и горизонтальные, и вертикальные проходы
+// сканировались словами, а не клетка за клеткой.
+final class LevelGrid {
+
+    private final int width;
+    private final int height;
+    private final int rowWords;
+    private final int colWords;
+    private final long[] rows;
+    private final long[] cols;
+    // После публикации в Level поле только читается
+    private boolean frozen;
+
+    LevelGrid(int width, int height) {
+        if (width <= 0 || height <= 0) {
+            throw new IllegalArgumentException("Grid size must be positive: " + width + "x" + height);
+        }
+        this.width = width;
+        this.height = height;
+        this.rowWords = (width + 63) >>> 6;
+        this.colWords = (height + 63) >>> 6;
+        this.rows = new long[height * rowWords];
+        this.cols = new long[width * colWords];
+    }
+
+    int getWidth() {
+        return width;
+    }
+
+    int getHeight() {
+        return height;
+    }
+
+    boolean isInside(int x, int y) {
+        return x >= 0 && x < width && y >= 0 && y < height;
+    }
+
+    boolean isWall(int x, int y) {
+        return (rows[y * rowWords + (x >>> 6)] & (1L << x)) != 0;
+    }
+
+    // Клетка в пределах поля и не занята стеной
+    boolean isFree(int x, int y) {
+        return isInside(x, y) && !isWall(x, y);
+    }
+
+    void setWall(int x, int y) {
+        checkWritable();
+        rows[y * rowWords + (x >>> 6)] |= 1L << x;
+        cols[x * colWords + (y >>> 6)] |= 1L << y;
+    }
+
+    void clearWall(int x, int y) {
+        checkWritable();
+        rows[y * rowWords + (x >>> 6)] &= ~(1L << x);
+        cols[x * colWords + (y >>> 6)] &= ~(1L << y);
+    }
+
+    void setWall(int x, int y, boolean wall) {
+        if (wall) {
+            setWall(x, y);
+        } else {
+            clearWall(x, y);
+        }
+    }
+
+    void clear() {
+        checkWritable();
+        Arrays.fill(rows, 0L);
+        Arrays.fill(cols, 0L);
+    }
+
+    // Стены по периметру в одну клетку
+    void fillBorder() {
+        for (int x = 0; x < width; x++) {
+            setWall(x, 0);
+            setWall(x, height - 1);
+        }
+        for (int y = 0; y < height; y++) {
+            setWall(0, y);
+            setWall(width - 1, y);
+        }
+    }
+
+    void copyFrom(LevelGrid other) {
+        if (other.width != width || other.height != height) {
+            throw new IllegalArgumentException("Grid size mismatch");
+        }
+        checkWritable();
+        System.arraycopy(other.rows, 0, rows, 0, rows.length);
+        System.arraycopy(other.cols, 0, cols, 0, cols.length);
+    }
+
+    LevelGrid copy() {
+        LevelGrid copy = new LevelGrid(width, height);
+        copy.copyFrom(this);
+        return copy;
+    }
+
+    // Запрещает дальнейшие изменения: такое поле можно отдавать другим потокам
+    void freeze() {
+        frozen = true;
+    }
+
+    boolean isFrozen() {
+        return frozen;
+    }
+
+    private void checkWritable() {
+        if (frozen) {
+            throw new IllegalStateException("Grid is frozen");
+        }
+    }
+
+    // Хэш размеров и стен по словам строк: у полей с sameWalls он один и тот же
+    long wallHash() {
+        long hash = LevelSeeds.mix64((long) width << 32 | height);
+        for (long word : rows) {
+            hash = LevelSeeds.mix64(hash ^ word);
+        }
+        return hash;
+    }
+
+    // Те же размеры и те же стены
+    boolean sameWalls(LevelGrid other) {
+        return other.width == width && other.height == height && Arrays.equals(other.rows, rows);
+    }
+
+    // Первая стена в строке y с координатой >= fromX, либо width если её нет
+    int nextWallInRow(int y, int fromX) {
+        return nextSetBit(rows, y * rowWords, rowWords, fromX, width);
+    }
+
+    // Последняя стена в строке y с координатой <= fromX, либо -1 если её нет
+    int prevWallInRow(int y, int fromX) {
+        return prevSetBit(rows, y * rowWords, fromX);
+    }
+
+    // Первая стена в столбце x с координатой >= fromY, либо height если её нет
+    int nextWallInColumn(int x, int fromY) {
+        return nextSetBit(cols, x * colWords, colWords, fromY, height);
+    }
+
+    // Последняя стена в столбце x с координатой <= fromY, либо -1 если её нет
+    int prevWallInColumn(int x, int fromY) {
+        return prevSetBit(cols, x * colWords, fromY);
+    }
+
+    // Слово строки y с номером wordIndex (биты за пределами ширины всегда 0)
+    long rowWord(int y, int wordIndex) {
+        return rows[y * rowWords + wordIndex];
+    }
+
+    int getRowWords() {
+        return rowWords;
+    }
+
+    int wallCount() {
+        int count = 0;
+        for (long word : rows) {
+            count += Long.bitCount(word);
+        }
+        return count;
+    }
+
+    private static int nextSetBit(long[] bits, int base, int words, int from, int limit) {
+        if (from >= limit) {
+            return limit;
+        }
+        if (from < 0) {
+            from = 0;
+        }
+        int wordIndex = from >>> 6;
+        long word = bits[base + wordIndex] & (-1L << from);
+        while (true) {
+            if (word != 0) {
+                int index = (wordIndex << 6) + Long.numberOfTrailingZeros(word);
+                return Math.min(index, limit);
+            }
+            if (++wordIndex == words) {
+                return limit;
+            }
+            word = bits[base + wordIndex];
+        }
+    }
+
+    private static int prevSetBit(long[] bits, int base, int from) {
+        if (from < 0) {
+            return -1;
+        }
+        int wordIndex = from >>> 6;
+        long word = bits[base + wordIndex] & (-1L >>> (63 - (from & 63)));
+        while (true) {
+            if (word != 0) {
+                return (wordIndex << 6) + 63 - Long.numberOfLeadingZeros(word);
+            }
+            if (wordIndex-- == 0) {
+                return -1;
+            }
+            word = bits[base + wordIndex];
+        }
+    }
+}
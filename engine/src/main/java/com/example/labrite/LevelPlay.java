@@ -0,0 +1,107 @@
+package com.example.labrite;
+
+// Правила прохождения уровня без отрисовки: свайп сдвигает шары по таблице
+// переходов, ход без движения не засчитывается, уровень пройден, когда шары
+// стоят на целях, и проигран, когда ходы кончились раньше. По этим правилам
+// играет GameView и по ним же ReplayEngine проигрывает записанные партии,
+// так что запись и повтор не могут разойтись из-за копии логики.
+// Объект переиспользуется между уровнями, ход ничего не выделяет;
+// не потокобезопасен.
+final class LevelPlay {
+
+    enum Outcome {
+        // Уровень ещё идёт или брошен недоигранным
+        PLAYING,
+        COMPLETED,
+        GAME_OVER
+    }
+
+    private Level level;
+    private int pieceCount;
+    private final int[] cells = new int[PieceStates.MAX_PIECES];
+    // Клетки до последнего засчитанного хода — для анимации
+    private final int[] previous = new int[PieceStates.MAX_PIECES];
+    private final int[] scratch = new int[PieceStates.MAX_PIECES];
+    // Целевая расстановка в каноническом виде: какой шар на какой цели, не важно
+    private long goal;
+    private int movesLeft;
+    private Outcome outcome = Outcome.PLAYING;
+
+    void reset(Level level) {
+        this.level = level;
+        pieceCount = level.getPieceCount();
+        System.arraycopy(level.pieceStarts, 0, cells, 0, pieceCount);
+        System.arraycopy(level.pieceStarts, 0, previous, 0, pieceCount);
+        System.arraycopy(level.pieceTargets, 0, scratch, 0, pieceCount);
+        goal = PieceStates.canonical(scratch, pieceCount);
+        movesLeft = level.movesLeft;
+        outcome = Outcome.PLAYING;
+    }
+
+    // Делает ход; false, если уровень уже закончен или ни один шар не сдвинулся
+    boolean move(Direction direction) {
+        if (outcome != Outcome.PLAYING) {
+            return false;
+        }
+        SlideTable table = level.table;
+        if (pieceCount == 1) {
+            int next = table.stop(cells[0], direction);
+            if (next == cells[0]) {
+                return false;
+            }
+            previous[0] = cells[0];
+            cells[0] = next;
+        } else {
+            MultiPieceSolver.slidePieces(table, cells, pieceCount, direction.ordinal(), scratch);
+            boolean moved = false;
+            for (int i = 0; i < pieceCount; i++) {
+                moved |= scratch[i] != cells[i];
+            }
+            if (!moved) {
+                return false;
+            }
+            System.arraycopy(cells, 0, previous, 0, pieceCount);
+            System.arraycopy(scratch, 0, cells, 0, pieceCount);
+        }
+        movesLeft--;
+        if (onTargets()) {
+            outcome = Outcome.COMPLETED;
+        } else if (movesLeft <= 0) {
+            outcome = Outcome.GAME_OVER;
+        }
+        return true;
+    }
+
+    private boolean onTargets() {
+        if (pieceCount == 1) {
+            return cells[0] == level.pieceTargets[0];
+        }
+        // canonical сортирует массив, поэтому сравниваем копию
+        System.arraycopy(cells, 0, scratch, 0, pieceCount);
+        return PieceStates.canonical(scratch, pieceCount) == goal;
+    }
+
+    Level getLevel() {
+        return level;
+    }
+
+    int getPieceCount() {
+        return pieceCount;
+    }
+
+    int getCell(int piece) {
+        return cells[piece];
+    }
+
+    int getPreviousCell(int piece) {
+        return previous[piece];
+    }
+
+    int getMovesLeft() {
+        return movesLeft;
+    }
+
+    Outcome getOutcome() {
+        return outcome;
+    }
+}
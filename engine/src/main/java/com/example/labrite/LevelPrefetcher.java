@@ -0,0 +1,178 @@
+package com.example.labrite;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Ограниченная очередь заранее сгенерированных уровней. Пока идёт уровень N,
+// в фоне строятся N+1..N+k, и startLevel просто забирает готовый результат.
+final class LevelPrefetcher {
+
+    private final ParallelLevelGenerator generator;
+    private final int capacity;
+    // Задания выполняются по одному: каждое и так занимает весь пул генерации
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "LevelPrefetch");
+        thread.setDaemon(true);
+        thread.setPriority(Thread.MIN_PRIORITY);
+        return thread;
+    });
+    private final Map<Integer, Entry> entries = new ConcurrentHashMap<>();
+    private final AtomicInteger hits = new AtomicInteger();
+    private final AtomicInteger misses = new AtomicInteger();
+    // Уровень ещё строился, и startLevel дождался его вместо новой генерации
+    private final AtomicInteger pendingWaits = new AtomicInteger();
+
+    private static final class Entry {
+        final int maxMoves;
+        final int gridWidth;
+        final int gridHeight;
+        final long seed;
+        final Future<Level> future;
+        // Задание уже вышло из очереди и строит уровень
+        final AtomicBoolean started;
+
+        Entry(int maxMoves, int gridWidth, int gridHeight, long seed, Future<Level> future,
+              AtomicBoolean started) {
+            this.maxMoves = maxMoves;
+            this.gridWidth = gridWidth;
+            this.gridHeight = gridHeight;
+            this.seed = seed;
+            this.future = future;
+            this.started = started;
+        }
+
+        boolean matches(int maxMoves, int gridWidth, int gridHeight, long seed) {
+            return this.maxMoves == maxMoves && this.gridWidth == gridWidth && this.gridHeight == gridHeight
+                    && this.seed == seed;
+        }
+    }
+
+    LevelPrefetcher(ParallelLevelGenerator generator, int capacity) {
+        this.generator = generator;
+        this.capacity = capacity;
+    }
+
+    // Ставит уровень в очередь предзагрузки, если его там нет и есть место
+    void prefetch(final int level, final int maxMoves, final int gridWidth, final int gridHeight,
+                  final long seed) {
+        Entry existing = entries.get(level);
+        if (existing != null) {
+            if (existing.matches(maxMoves, gridWidth, gridHeight, seed)) {
+                return;
+            }
+            remove(level, existing);
+        }
+        if (entries.size() >= capacity) {
+            return;
+        }
+        final AtomicBoolean started = new AtomicBoolean();
+        Future<Level> future = executor.submit(() -> {
+            started.set(true);
+            return generator.generateInBackground(level, maxMoves, gridWidth, gridHeight, seed);
+        });
+        if (entries.putIfAbsent(level, new Entry(maxMoves, gridWidth, gridHeight, seed, future, started)) != null) {
+            future.cancel(true);
+        }
+    }
+
+    // Готовый уровень, если он уже построен, иначе null. Более ранние уровни
+    // из очереди выбрасываются: к ним игрок уже не вернётся. Промах считает
+    // takePending, который вызывается следом.
+    Level poll(int level, int maxMoves, int gridWidth, int gridHeight, long seed) {
+        dropBelow(level);
+        Entry entry = entries.get(level);
+        if (entry == null || !entry.matches(maxMoves, gridWidth, gridHeight, seed) || !entry.future.isDone()) {
+            return null;
+        }
+        entries.remove(level, entry);
+        Level ready = resultOf(entry.future);
+        if (ready == null) {
+            return null;
+        }
+        hits.incrementAndGet();
+        return ready;
+    }
+
+    // Уже идущая предзагрузка этого уровня, чтобы не строить его второй раз.
+    // Задание, которое ещё стоит в очереди, отменяется: ждать его дольше,
+    // чем построить уровень сразу на основном пуле.
+    Future<Level> takePending(int level, int maxMoves, int gridWidth, int gridHeight, long seed) {
+        Entry entry = entries.get(level);
+        if (entry == null || !entry.matches(maxMoves, gridWidth, gridHeight, seed)
+                || !entries.remove(level, entry)) {
+            misses.incrementAndGet();
+            return null;
+        }
+        if (!entry.started.get()) {
+            entry.future.cancel(true);
+            misses.incrementAndGet();
+            return null;
+        }
+        pendingWaits.incrementAndGet();
+        return entry.future;
+    }
+
+    // Сбрасывает всё, что было построено для прежней партии (рестарт, выход в меню)
+    void clear() {
+        for (Iterator<Map.Entry<Integer, Entry>> it = entries.entrySet().iterator(); it.hasNext(); ) {
+            it.next().getValue().future.cancel(true);
+            it.remove();
+        }
+    }
+
+    void shutdown() {
+        clear();
+        executor.shutdownNow();
+    }
+
+    int getHits() {
+        return hits.get();
+    }
+
+    int getMisses() {
+        return misses.get();
+    }
+
+    int getPendingWaits() {
+        return pendingWaits.get();
+    }
+
+    int getQueuedCount() {
+        return entries.size();
+    }
+
+    private void dropBelow(int level) {
+        for (Iterator<Map.Entry<Integer, Entry>> it = entries.entrySet().iterator(); it.hasNext(); ) {
+            Map.Entry<Integer, Entry> entry = it.next();
+            if (entry.getKey() < level) {
+                entry.getValue().future.cancel(true);
+                it.remove();
+            }
+        }
+    }
+
+    private void remove(int level, Entry entry) {
+        if (entries.remove(level, entry)) {
+            entry.future.cancel(true);
+        }
+    }
+
+    private static Level resultOf(Future<Level> future) {
+        try {
+            return future.get();
+        } catch (CancellationException | ExecutionException e) {
+            return null;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package com.example.labrite;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+// Фоновое пополнение хранилища уровней: после того как уровень забрали из
+// хранилища, на его место строится новый. Зерно даёт вызывающий (GameView
+// выводит его из зерна партии), а уровень хранит его вместе с номером попытки,
+// так что выданный из хранилища уровень по-прежнему строится заново по записи.
+// Хранилище общее: пополнение пишет в него здесь, а загрузка уровня берёт и
+// закрывает его в своём потоке, так что потоки разделяют его synchronized-методы.
+final class LevelRefiller {
+
+    // Сколько уровней с одинаковыми параметрами держать в запасе
+    static final int TARGET_PER_LEVEL = 1;
+
+    private final LevelStore store;
+    private final ParallelLevelGenerator generator;
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "LevelRefill");
+        thread.setDaemon(true);
+        thread.setPriority(Thread.MIN_PRIORITY);
+        return thread;
+    });
+    // Пополнения в очереди по полному набору параметров: уровень одного размера
+    // или запаса ходов не задерживает тот же номер с другими
+    private final Map<PendingKey, Boolean> pending = new ConcurrentHashMap<>();
+
+    LevelRefiller(LevelStore store, ParallelLevelGenerator generator) {
+        this.store = store;
+        this.generator = generator;
+    }
+
+    void refill(final int level, final int maxMoves, final int gridWidth, final int gridHeight,
+                final long seed) {
+        if (!LevelStore.canStore(gridWidth, gridHeight)) {
+            return;
+        }
+        final PendingKey key = new PendingKey(level, maxMoves, gridWidth, gridHeight);
+        if (pending.putIfAbsent(key, Boolean.TRUE) != null) {
+            return;
+        }
+        executor.execute(() -> {
+            try {
+                if (store.count(level, maxMoves, gridWidth, gridHeight) >= TARGET_PER_LEVEL) {
+                    return;
+                }
+                Level generated = generator.generateInBackground(level, maxMoves, gridWidth, gridHeight, seed);
+                store.put(level, maxMoves, generated);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                pending.remove(key);
+            }
+        });
+    }
+
+    void shutdown() {
+        executor.shutdownNow();
+    }
+
+    private static final class PendingKey {
+        private final int level;
+        private final int maxMoves;
+        private final int gridWidth;
+        private final int gridHeight;
+
+        PendingKey(int level, int maxMoves, int gridWidth, int gridHeight) {
+            this.level = level;
+            this.maxMoves = maxMoves;
+            this.gridWidth = gridWidth;
+            this.gridHeight = gridHeight;
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            if (!(other instanceof PendingKey)) {
+                return false;
+            }
+            PendingKey key = (PendingKey) other;
+            return level == key.level && maxMoves == key.maxMoves
+                    && gridWidth == key.gridWidth && gridHeight == key.gridHeight;
+        }
+
+        @Override
+        public int hashCode() {
+            long hash = LevelSeeds.mix64((long) level << 32 ^ maxMoves ^ (long) gridWidth << 48 ^ (long) gridHeight << 16);
+            return (int) (hash ^ (hash >>> 32));
+        }
+    }
+}
@@ -0,0 +1,26 @@
+package com.example.labrite;
+
+// Вывод зёрен генерации: партия -> уровень -> попытка. Одинаковое зерно
+// всегда даёт одинаковые стены и одинаковое minMovesToTarget.
+final class LevelSeeds {
+
+    private static final long GOLDEN_GAMMA = 0x9e3779b97f4a7c15L;
+
+    private LevelSeeds() {
+    }
+
+    static long forLevel(long sessionSeed, int level) {
+        return mix64(sessionSeed + GOLDEN_GAMMA * level);
+    }
+
+    static long forAttempt(long levelSeed, int attempt) {
+        return mix64(levelSeed + GOLDEN_GAMMA * (attempt + 1L));
+    }
+
+    // Перемешивание как в SplittableRandom (вариант Стаффорда)
+    static long mix64(long z) {
+        z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+        z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+        return z ^ (z >>> 31);
+    }
+}
@@ -0,0 +1,274 @@
+package com.example.labrite;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.zip.CRC32;
+
+// Хранилище готовых уровней в приватном файле приложения. Файл фиксированного
+// размера отображается в память: заголовок, затем корзины по номеру уровня,
+// в каждой корзине кольцо слотов. Номер слота вычисляется арифметически,
+// так что доступ к уровню — это чтение по смещению без разбора файла.
+// Новая запись перезаписывает самый старый слот корзины, поэтому размер
+// ограничен, а слот становится видимым только после записи флага валидности
+// и хранит контрольную сумму тела, так что оборванная запись после смерти
+// процесса или системы просто игнорируется — без force() на каждую запись.
+// Все методы делают файловый ввод-вывод и вызываются только из фоновых потоков.
+final class LevelStore implements Closeable {
+
+    private static final int MAGIC = 0x4C565354; // "LVST"
+    private static final int VERSION = 3;
+
+    static final int BUCKETS = 32;
+    // Запас держится по одному уровню на номер, второй слот — на соседа по корзине
+    static final int SLOTS_PER_BUCKET = 2;
+    // Поля больше этого не сохраняются, чтобы слоты были фиксированного размера:
+    // до 128x128 включительно. Слот под 256x256 занял бы 8 КБ, и файл вырос бы
+    // до полумегабайта ради самого редкого размера — такие уровни строятся на месте.
+    static final int MAX_STORED_CELLS = 128 * 128;
+
+    private static final int HEADER_SIZE = 32;
+    // Курсор записи кольца для каждой корзины
+    private static final int INDEX_SIZE = BUCKETS * 4;
+    private static final int SLOT_HEADER_SIZE = 56;
+    private static final int SLOT_SIZE = SLOT_HEADER_SIZE + MAX_STORED_CELLS / 8;
+    private static final int FILE_SIZE = HEADER_SIZE + INDEX_SIZE + BUCKETS * SLOTS_PER_BUCKET * SLOT_SIZE;
+
+    private static final int STATE_EMPTY = 0;
+    private static final int STATE_VALID = 1;
+
+    // Смещения внутри слота
+    private static final int SLOT_STATE = 0;
+    private static final int SLOT_LEVEL = 4;
+    private static final int SLOT_MAX_MOVES = 8;
+    private static final int SLOT_WIDTH = 12;
+    private static final int SLOT_HEIGHT = 14;
+    private static final int SLOT_START_X = 16;
+    private static final int SLOT_START_Y = 18;
+    private static final int SLOT_TARGET_X = 20;
+    private static final int SLOT_TARGET_Y = 22;
+    private static final int SLOT_MIN_MOVES = 24;
+    private static final int SLOT_MOVES_LEFT = 28;
+    private static final int SLOT_SEED = 32;
+    private static final int SLOT_SEQUENCE = 40;
+    private static final int SLOT_ATTEMPT = 44;
+    // CRC32 всего слота после флага состояния
+    private static final int SLOT_CHECKSUM = 48;
+
+    private final RandomAccessFile file;
+    private final FileChannel channel;
+    private final MappedByteBuffer buffer;
+    private int sequence;
+
+    private LevelStore(RandomAccessFile file, FileChannel channel, MappedByteBuffer buffer) {
+        this.file = file;
+        this.channel = channel;
+        this.buffer = buffer;
+    }
+
+    static LevelStore open(File path) throws IOException {
+        RandomAccessFile file = new RandomAccessFile(path, "rw");
+        try {
+            boolean fresh = file.length() != FILE_SIZE;
+            if (fresh) {
+                file.setLength(0);
+                file.setLength(FILE_SIZE);
+            }
+            FileChannel channel = file.getChannel();
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, FILE_SIZE);
+            LevelStore store = new LevelStore(file, channel, buffer);
+            if (fresh || buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION
+                    || buffer.getInt(8) != SLOT_SIZE) {
+                store.format();
+            }
+            store.sequence = store.maxSequence();
+            return store;
+        } catch (IOException | RuntimeException e) {
+            file.close();
+            throw e;
+        }
+    }
+
+    static boolean canStore(int gridWidth, int gridHeight) {
+        return gridWidth * gridHeight <= MAX_STORED_CELLS && gridWidth <= Short.MAX_VALUE
+                && gridHeight <= Short.MAX_VALUE;
+    }
+
+    // Забирает сохранённый уровень (слот освобождается) или возвращает null
+    synchronized Level take(int level, int maxMoves, int gridWidth, int gridHeight) {
+        int bucket = bucketOf(level);
+        int found = -1;
+        int foundSequence = Integer.MAX_VALUE;
+        for (int i = 0; i < SLOTS_PER_BUCKET; i++) {
+            int slot = slotOffset(bucket, i);
+            if (matches(slot, level, maxMoves, gridWidth, gridHeight)
+                    && buffer.getInt(slot + SLOT_SEQUENCE) < foundSequence) {
+                found = slot;
+                foundSequence = buffer.getInt(slot + SLOT_SEQUENCE);
+            }
+        }
+        if (found < 0) {
+            return null;
+        }
+        // Без force(): после падения процесса уровень в худшем случае выдадут ещё раз
+        buffer.putInt(found + SLOT_STATE, STATE_EMPTY);
+        if (buffer.getInt(found + SLOT_CHECKSUM) != checksum(found)) {
+            // Запись оборвалась посреди слота — такой уровень не выдаём
+            return null;
+        }
+        return read(found);
+    }
+
+    // Сохраняет уровень, вытесняя самый старый слот корзины
+    synchronized boolean put(int level, int maxMoves, Level value) {
+        int width = value.getWidth();
+        int height = value.getHeight();
+        if (!canStore(width, height)) {
+            return false;
+        }
+        int bucket = bucketOf(level);
+        int cursorOffset = HEADER_SIZE + bucket * 4;
+        int index = Math.floorMod(buffer.getInt(cursorOffset), SLOTS_PER_BUCKET);
+        int slot = slotOffset(bucket, index);
+
+        // Сначала гасим флаг, потом пишем тело, потом снова выставляем флаг
+        buffer.putInt(slot + SLOT_STATE, STATE_EMPTY);
+        buffer.putInt(slot + SLOT_LEVEL, level);
+        buffer.putInt(slot + SLOT_MAX_MOVES, maxMoves);
+        buffer.putShort(slot + SLOT_WIDTH, (short) width);
+        buffer.putShort(slot + SLOT_HEIGHT, (short) height);
+        buffer.putShort(slot + SLOT_START_X, (short) value.startX);
+        buffer.putShort(slot + SLOT_START_Y, (short) value.startY);
+        buffer.putShort(slot + SLOT_TARGET_X, (short) value.targetX);
+        buffer.putShort(slot + SLOT_TARGET_Y, (short) value.targetY);
+        buffer.putInt(slot + SLOT_MIN_MOVES, value.minMoves);
+        buffer.putInt(slot + SLOT_MOVES_LEFT, value.movesLeft);
+        buffer.putLong(slot + SLOT_SEED, value.seed);
+        buffer.putInt(slot + SLOT_SEQUENCE, ++sequence);
+        buffer.putInt(slot + SLOT_ATTEMPT, value.attempt);
+        writeWalls(slot + SLOT_HEADER_SIZE, value.grid);
+        buffer.putInt(slot + SLOT_CHECKSUM, checksum(slot));
+        buffer.putInt(slot + SLOT_STATE, STATE_VALID);
+        buffer.putInt(cursorOffset, (index + 1) % SLOTS_PER_BUCKET);
+        return true;
+    }
+
+    // Сколько уровней с такими параметрами лежит в хранилище
+    synchronized int count(int level, int maxMoves, int gridWidth, int gridHeight) {
+        int bucket = bucketOf(level);
+        int count = 0;
+        for (int i = 0; i < SLOTS_PER_BUCKET; i++) {
+            if (matches(slotOffset(bucket, i), level, maxMoves, gridWidth, gridHeight)) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    synchronized void clear() {
+        format();
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        buffer.force();
+        channel.close();
+        file.close();
+    }
+
+    private static int bucketOf(int level) {
+        return Math.floorMod(level, BUCKETS);
+    }
+
+    private static int slotOffset(int bucket, int index) {
+        return HEADER_SIZE + INDEX_SIZE + (bucket * SLOTS_PER_BUCKET + index) * SLOT_SIZE;
+    }
+
+    private boolean matches(int slot, int level, int maxMoves, int gridWidth, int gridHeight) {
+        return buffer.getInt(slot + SLOT_STATE) == STATE_VALID
+                && buffer.getInt(slot + SLOT_LEVEL) == level
+                && buffer.getInt(slot + SLOT_MAX_MOVES) == maxMoves
+                && buffer.getShort(slot + SLOT_WIDTH) == gridWidth
+                && buffer.getShort(slot + SLOT_HEIGHT) == gridHeight;
+    }
+
+    private Level read(int slot) {
+        int width = buffer.getShort(slot + SLOT_WIDTH);
+        int height = buffer.getShort(slot + SLOT_HEIGHT);
+        LevelGrid grid = new LevelGrid(width, height);
+        int base = slot + SLOT_HEADER_SIZE;
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                int bit = y * width + x;
+                if ((buffer.get(base + (bit >>> 3)) & (1 << (bit & 7))) != 0) {
+                    grid.setWall(x, y);
+                }
+            }
+        }
+        SlideTable table = new SlideTable(width, height);
+        table.rebuild(grid);
+        return new Level(grid, table,
+                buffer.getShort(slot + SLOT_START_X), buffer.getShort(slot + SLOT_START_Y),
+                buffer.getShort(slot + SLOT_TARGET_X), buffer.getShort(slot + SLOT_TARGET_Y),
+                buffer.getInt(slot + SLOT_MIN_MOVES), buffer.getInt(slot + SLOT_MOVES_LEFT),
+                buffer.getLong(slot + SLOT_SEED), buffer.getInt(slot + SLOT_ATTEMPT));
+    }
+
+    // Заголовок после флага состояния и стены; ширина и высота уже под суммой,
+    // поэтому испорченный размер не даст прочитать чужие байты незамеченным
+    private int checksum(int slot) {
+        CRC32 crc = new CRC32();
+        for (int i = slot + SLOT_LEVEL; i < slot + SLOT_CHECKSUM; i++) {
+            crc.update(buffer.get(i));
+        }
+        int cells = Math.max(0, buffer.getShort(slot + SLOT_WIDTH) * buffer.getShort(slot + SLOT_HEIGHT));
+        int wallBytes = Math.min((cells + 7) >>> 3, MAX_STORED_CELLS / 8);
+        for (int i = 0; i < wallBytes; i++) {
+            crc.update(buffer.get(slot + SLOT_HEADER_SIZE + i));
+        }
+        return (int) crc.getValue();
+    }
+
+    // Стены упакованы по биту на клетку в порядке строк
+    private void writeWalls(int base, LevelGrid grid) {
+        int width = grid.getWidth();
+        int cells = width * grid.getHeight();
+        for (int i = 0; i < (cells + 7) >>> 3; i++) {
+            buffer.put(base + i, (byte) 0);
+        }
+        for (int bit = 0; bit < cells; bit++) {
+            if (grid.isWall(bit % width, bit / width)) {
+                int offset = base + (bit >>> 3);
+                buffer.put(offset, (byte) (buffer.get(offset) | (1 << (bit & 7))));
+            }
+        }
+    }
+
+    private int maxSequence() {
+        int max = 0;
+        for (int bucket = 0; bucket < BUCKETS; bucket++) {
+            for (int i = 0; i < SLOTS_PER_BUCKET; i++) {
+                int slot = slotOffset(bucket, i);
+                if (buffer.getInt(slot + SLOT_STATE) == STATE_VALID) {
+                    max = Math.max(max, buffer.getInt(slot + SLOT_SEQUENCE));
+                }
+            }
+        }
+        return max;
+    }
+
+    private void format() {
+        for (int i = 0; i < FILE_SIZE; i++) {
+            buffer.put(i, (byte) 0);
+        }
+        buffer.putInt(0, MAGIC);
+        buffer.putInt(4, VERSION);
+        buffer.putInt(8, SLOT_SIZE);
+        buffer.putInt(12, BUCKETS);
+        buffer.putInt(16, SLOTS_PER_BUCKET);
+        buffer.force();
+    }
+}
@@ -0,0 +1,83 @@
+package com.example.labrite;
+
+import java.util.Arrays;
+
+// Множество long без упаковки в объекты: открытая адресация с линейным
+// пробированием в одном массиве. Ёмкость задаётся при создании и не растёт —
+// это и есть бюджет памяти поиска; заполненность держится не выше половины.
+// Значение EMPTY хранить нельзя.
+final class LongHashSet {
+
+    static final long EMPTY = -1L;
+
+    private final long[] keys;
+    private final int mask;
+    private final int maxSize;
+    private int size;
+
+    LongHashSet(int maxSize) {
+        this.maxSize = Math.max(1, maxSize);
+        // Наименьшая степень двойки не меньше удвоенного бюджета
+        int capacity = Integer.highestOneBit(this.maxSize * 2 - 1) << 1;
+        this.keys = new long[capacity];
+        this.mask = capacity - 1;
+        Arrays.fill(keys, EMPTY);
+    }
+
+    int size() {
+        return size;
+    }
+
+    int getMaxSize() {
+        return maxSize;
+    }
+
+    boolean isFull() {
+        return size >= maxSize;
+    }
+
+    boolean contains(long key) {
+        int slot = slotOf(key);
+        while (true) {
+            long stored = keys[slot];
+            if (stored == key) {
+                return true;
+            }
+            if (stored == EMPTY) {
+                return false;
+            }
+            slot = (slot + 1) & mask;
+        }
+    }
+
+    // false, если ключ уже был; добавление в полное множество — ошибка вызывающего
+    boolean add(long key) {
+        int slot = slotOf(key);
+        while (true) {
+            long stored = keys[slot];
+            if (stored == key) {
+                return false;
+            }
+            if (stored == EMPTY) {
+                if (size >= maxSize) {
+                    throw new IllegalStateException("State budget of " + maxSize + " exceeded");
+                }
+                keys[slot] = key;
+                size++;
+                return true;
+            }
+            slot = (slot + 1) & mask;
+        }
+    }
+
+    void clear() {
+        if (size > 0) {
+            Arrays.fill(keys, EMPTY);
+            size = 0;
+        }
+    }
+
+    private int slotOf(long key) {
+        return (int) LevelSeeds.mix64(key) & mask;
+    }
+}
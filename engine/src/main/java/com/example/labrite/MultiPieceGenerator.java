@@ -0,0 +1,200 @@
+package com.example.labrite;
+
+import java.util.SplittableRandom;
+
+// Уровни с несколькими шарами. Стены строит обычный LevelGenerator, затем
+// шары расставляются случайно, и поиск в ширину по совместным положениям
+// открывает слои до нужной глубины. Цель — случайная расстановка из слоя
+// ровно на нужном расстоянии, поэтому её минимум ходов известен точно.
+// Если так далеко не уйти, как в ensureMinMoves добавляются стены и поиск
+// повторяется; по исчерпании попыток берётся самый дальний слой, но не
+// мельче ParallelLevelGenerator.MIN_ACCEPTED_MOVES.
+// Работа ограничена только числом состояний решателя и числом попыток, без
+// часов, поэтому уровень зависит от одного зерна и повторяется при повторе партии.
+final class MultiPieceGenerator {
+
+    // Сколько раз добавлять стены, прежде чем сменить зерно
+    private static final int ENSURE_ROUNDS = 8;
+    private static final int WALLS_PER_ROUND = 2;
+    private static final int SEED_TRIES = 8;
+    // Меньше свободных клеток на шар — поле выродилось (ensureMinMoves мог
+    // оставить несколько клеток), и шарам некуда ехать
+    private static final int MIN_FREE_CELLS_PER_PIECE = 4;
+
+    private final int gridWidth;
+    private final int gridHeight;
+    private final LevelGenerator wallGenerator;
+    private final MultiPieceSolver solver;
+    private final LevelGrid walls;
+    private final SlideTable table;
+    private final int[] cells = new int[PieceStates.MAX_PIECES];
+
+    MultiPieceGenerator(int gridWidth, int gridHeight) {
+        this(gridWidth, gridHeight, new MultiPieceSolver());
+    }
+
+    MultiPieceGenerator(int gridWidth, int gridHeight, MultiPieceSolver solver) {
+        if (gridWidth * gridHeight > PieceStates.MAX_CELLS) {
+            throw new IllegalArgumentException("Grid " + gridWidth + "x" + gridHeight
+                    + " does not fit a packed piece state");
+        }
+        this.gridWidth = gridWidth;
+        this.gridHeight = gridHeight;
+        this.wallGenerator = new LevelGenerator(gridWidth, gridHeight);
+        this.solver = solver;
+        this.walls = new LevelGrid(gridWidth, gridHeight);
+        this.table = new SlideTable(gridWidth, gridHeight);
+    }
+
+    int getGridWidth() {
+        return gridWidth;
+    }
+
+    int getGridHeight() {
+        return gridHeight;
+    }
+
+    // Строит уровень для pieceCount шаров (2..4). В minMoves уровня всегда
+    // настоящий минимум ходов до целевой расстановки; если нужной глубины
+    // добиться не удалось, берётся самая далёкая найденная. IllegalStateException,
+    // если ни одно зерно не дало и MIN_ACCEPTED_MOVES ходов.
+    Level generate(int level, int pieceCount, int maxMoves, long levelSeed) {
+        if (pieceCount < 2 || pieceCount > PieceStates.MAX_PIECES) {
+            throw new IllegalArgumentException("Piece count " + pieceCount);
+        }
+        Tracer.beginSection("MultiPiece.generate");
+        try {
+            int required = LevelGenerator.targetMovesFor(level);
+            Level best = null;
+            for (int attempt = 0; attempt < SEED_TRIES; attempt++) {
+                Level built = build(level, pieceCount, maxMoves, levelSeed,
+                        LevelSeeds.forAttempt(levelSeed, attempt), required);
+                if (built != null && (best == null || built.minMoves > best.minMoves)) {
+                    best = built;
+                }
+                if (best != null && best.minMoves >= required) {
+                    break;
+                }
+            }
+            if (best == null || best.minMoves < ParallelLevelGenerator.MIN_ACCEPTED_MOVES) {
+                throw new IllegalStateException("No movable piece layout for level " + level);
+            }
+            Tracer.d("multi level %d: %d pieces, %d moves", level, pieceCount, best.minMoves);
+            return best;
+        } finally {
+            Tracer.endSection();
+        }
+    }
+
+    private Level build(int level, int pieceCount, int maxMoves, long levelSeed, long seed, int required) {
+        wallGenerator.generateLevel(level, seed);
+        wallGenerator.copyWallsTo(walls);
+        int free = countFreeCells();
+        if (free < pieceCount * MIN_FREE_CELLS_PER_PIECE) {
+            // ensureMinMoves замуровал поле под один шар — берём стены обратного
+            // построения: их плотность задана числом препятствий, а не глубиной
+            wallGenerator.generateBackward(level, seed, required);
+            wallGenerator.copyWallsTo(walls);
+            free = countFreeCells();
+            if (free < pieceCount * MIN_FREE_CELLS_PER_PIECE) {
+                return null;
+            }
+        }
+        table.rebuild(walls);
+        SplittableRandom random = new SplittableRandom(LevelSeeds.mix64(seed));
+
+        // Первый шар на обычном старте, если он свободен, остальные в случайных свободных клетках
+        int placed = 0;
+        if (walls.isFree(1, 1)) {
+            cells[placed++] = table.cell(1, 1);
+        }
+        for (int i = placed; i < pieceCount; i++) {
+            cells[i] = randomFreeCell(random, free - i, i);
+        }
+        int[] starts = new int[pieceCount];
+        System.arraycopy(cells, 0, starts, 0, pieceCount);
+        long start = PieceStates.canonical(cells, pieceCount);
+
+        Level best = null;
+        for (int round = 0; round <= ENSURE_ROUNDS; round++) {
+            int depth = solver.explore(table, start, pieceCount, required);
+            if (depth > 0 && (best == null || depth > best.minMoves)) {
+                best = snapshot(random, starts, pieceCount, depth, maxMoves, levelSeed);
+            }
+            if (depth >= required) {
+                break;
+            }
+            // Слишком свободно: пара новых стен, как в ensureMinMoves
+            for (int i = 0; i < WALLS_PER_ROUND; i++) {
+                addWall(random, starts, pieceCount);
+            }
+        }
+        return best;
+    }
+
+    // Цель — случайная расстановка из слоя depth
+    private Level snapshot(SplittableRandom random, int[] starts, int pieceCount, int depth,
+                           int maxMoves, long levelSeed) {
+        int first = solver.layerStart(depth);
+        long goal = solver.getExploredState(first + random.nextInt(solver.layerStart(depth + 1) - first));
+        int moves = depth;
+        int[] targets = new int[pieceCount];
+        PieceStates.unpack(goal, pieceCount, targets);
+        LevelGrid grid = walls.copy();
+        SlideTable levelTable = new SlideTable(gridWidth, gridHeight);
+        levelTable.rebuild(grid);
+        return new Level(grid, levelTable, starts, targets, moves, Math.max(maxMoves, moves + 2), levelSeed,
+                Level.NO_ATTEMPT);
+    }
+
+    private int countFreeCells() {
+        int free = 0;
+        for (int y = 1; y < gridHeight - 1; y++) {
+            for (int x = 1; x < gridWidth - 1; x++) {
+                if (walls.isFree(x, y)) {
+                    free++;
+                }
+            }
+        }
+        return free;
+    }
+
+    // Случайная из available свободных клеток, не занятых первыми index шарами:
+    // выбор по номеру и один проход по полю, без повторных бросков
+    private int randomFreeCell(SplittableRandom random, int available, int index) {
+        int skip = random.nextInt(available);
+        for (int y = 1; y < gridHeight - 1; y++) {
+            for (int x = 1; x < gridWidth - 1; x++) {
+                int cell = table.cell(x, y);
+                if (walls.isFree(x, y) && !occupied(cell, index) && skip-- == 0) {
+                    return cell;
+                }
+            }
+        }
+        throw new IllegalStateException("Free cell count is out of date");
+    }
+
+    private boolean occupied(int cell, int count) {
+        for (int i = 0; i < count; i++) {
+            if (cells[i] == cell) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void addWall(SplittableRandom random, int[] starts, int pieceCount) {
+        int x = random.nextInt(gridWidth - 2) + 1;
+        int y = random.nextInt(gridHeight - 2) + 1;
+        int cell = table.cell(x, y);
+        for (int i = 0; i < pieceCount; i++) {
+            if (starts[i] == cell) {
+                return;
+            }
+        }
+        if (walls.isFree(x, y)) {
+            walls.setWall(x, y);
+            table.onWallChanged(walls, x, y);
+        }
+    }
+}
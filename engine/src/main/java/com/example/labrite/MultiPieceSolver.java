@@ -0,0 +1,184 @@
+package com.example.labrite;
+
+import java.util.Arrays;
+
+// Поиск в ширину по совместным положениям нескольких шаров. Все шары
+// скользят по одному свайпу и упираются в стены и друг в друга. Состояние —
+// канонический long из PieceStates, посещённые хранятся в LongHashSet,
+// очередь — массив long, так что поиск не создаёт объектов.
+//
+// Число состояний растёт как клетки^k, поэтому у поиска жёсткий бюджет:
+// не больше maxStates состояний (память выделяется один раз в конструкторе).
+// Бюджет считается в состояниях, а не во времени, так что результат зависит
+// только от поля и не меняется от загрузки устройства. Если бюджет исчерпан,
+// найденные расстояния всё равно точные — BFS открывает состояния по
+// возрастанию расстояния, — но недостижимость уже не доказана.
+final class MultiPieceSolver {
+
+    // Результат minMoves, если бюджет кончился раньше, чем нашлась цель
+    static final int BUDGET_EXCEEDED = -2;
+    static final int DEFAULT_MAX_STATES = 1 << 18;
+
+    private final int maxStates;
+    private final LongHashSet visited;
+    private final long[] queue;
+    // layerStarts[d] — индекс в очереди первого состояния на расстоянии d
+    private int[] layerStarts = new int[64];
+    private int layerCount;
+    private int queued;
+    private boolean budgetExceeded;
+
+    private final int[] from = new int[PieceStates.MAX_PIECES];
+    private final int[] to = new int[PieceStates.MAX_PIECES];
+
+    MultiPieceSolver() {
+        this(DEFAULT_MAX_STATES);
+    }
+
+    MultiPieceSolver(int maxStates) {
+        this.maxStates = Math.max(1, maxStates);
+        this.visited = new LongHashSet(this.maxStates);
+        this.queue = new long[this.maxStates];
+    }
+
+    int getMaxStates() {
+        return maxStates;
+    }
+
+    // Минимум ходов из start в goal (оба канонические), -1 если goal
+    // недостижим, BUDGET_EXCEEDED если бюджета не хватило
+    int minMoves(SlideTable table, long start, long goal, int pieceCount) {
+        return search(table, start, goal, pieceCount, Integer.MAX_VALUE);
+    }
+
+    // Обходит достижимое из start в пределах бюджета, пока не будет полностью
+    // открыт слой maxDepth, и возвращает наибольшее найденное расстояние.
+    // Открытые состояния и их расстояния доступны через getExploredCount,
+    // getExploredState и layerStart.
+    int explore(SlideTable table, long start, int pieceCount, int maxDepth) {
+        search(table, start, LongHashSet.EMPTY, pieceCount, maxDepth);
+        return getDepth();
+    }
+
+    int explore(SlideTable table, long start, int pieceCount) {
+        return explore(table, start, pieceCount, Integer.MAX_VALUE);
+    }
+
+    boolean isBudgetExceeded() {
+        return budgetExceeded;
+    }
+
+    int getExploredCount() {
+        return queued;
+    }
+
+    long getExploredState(int index) {
+        return queue[index];
+    }
+
+    // Наибольшее расстояние среди открытых состояний
+    int getDepth() {
+        return layerCount - 1;
+    }
+
+    // Первый индекс состояний на расстоянии depth; для depth > getDepth() — getExploredCount()
+    int layerStart(int depth) {
+        return depth < layerCount ? layerStarts[depth] : queued;
+    }
+
+    private int search(SlideTable table, long start, long goal, int pieceCount, int maxDepth) {
+        visited.clear();
+        budgetExceeded = false;
+        layerCount = 0;
+        queued = 0;
+        visited.add(start);
+        queue[queued++] = start;
+        startLayer(0);
+        if (start == goal) {
+            return 0;
+        }
+        int head = 0;
+        int depth = 0;
+        // Слой depth + 1 открыт целиком, когда разобран слой depth
+        while (head < queued && depth < maxDepth) {
+            int layerEnd = queued;
+            boolean nextLayerStarted = false;
+            while (head < layerEnd) {
+                long state = queue[head++];
+                for (int direction = 0; direction < SlideTable.DIRECTIONS; direction++) {
+                    long next = slide(table, state, pieceCount, direction);
+                    if (next == state || visited.contains(next)) {
+                        continue;
+                    }
+                    if (visited.isFull()) {
+                        budgetExceeded = true;
+                        return BUDGET_EXCEEDED;
+                    }
+                    if (!nextLayerStarted) {
+                        startLayer(queued);
+                        nextLayerStarted = true;
+                    }
+                    visited.add(next);
+                    queue[queued++] = next;
+                    if (next == goal) {
+                        return depth + 1;
+                    }
+                }
+            }
+            depth++;
+        }
+        return -1;
+    }
+
+    private void startLayer(int index) {
+        if (layerCount == layerStarts.length) {
+            layerStarts = Arrays.copyOf(layerStarts, layerCount * 2);
+        }
+        layerStarts[layerCount++] = index;
+    }
+
+    // Один свайп из канонического состояния, результат тоже канонический
+    long slide(SlideTable table, long state, int pieceCount, int direction) {
+        PieceStates.unpack(state, pieceCount, from);
+        slidePieces(table, from, pieceCount, direction, to);
+        return PieceStates.canonical(to, pieceCount);
+    }
+
+    // Сдвигает все шары в направлении direction, сохраняя их порядок в массиве:
+    // to[i] — куда приехал шар from[i]. Первым едет шар, стоящий дальше всех
+    // по ходу движения, следующий на той же линии упирается в него.
+    static void slidePieces(SlideTable table, int[] from, int count, int direction, int[] to) {
+        int step = table.step(direction);
+        int width = table.getWidth();
+        for (int i = 0; i < count; i++) {
+            to[i] = -1;
+        }
+        for (int done = 0; done < count; done++) {
+            // Из ещё не сдвинутых берём самый передний по ходу движения:
+            // на одной линии порядок клеток совпадает с порядком по ходу
+            int piece = -1;
+            for (int i = 0; i < count; i++) {
+                if (to[i] < 0 && (piece < 0 || (long) (from[i] - from[piece]) * step > 0)) {
+                    piece = i;
+                }
+            }
+            int cell = from[piece];
+            int reach = (table.stop(cell, direction) - cell) / step;
+            // Ближайший уже сдвинутый шар на пути останавливает этот перед собой
+            for (int i = 0; i < count; i++) {
+                int other = to[i];
+                if (other < 0) {
+                    continue;
+                }
+                int offset = other - cell;
+                boolean sameLine = (step == 1 || step == -1) ? other / width == cell / width
+                        : offset % width == 0;
+                int distance = offset / step;
+                if (sameLine && distance > 0 && distance <= reach) {
+                    reach = distance - 1;
+                }
+            }
+            to[piece] = cell + reach * step;
+        }
+    }
+}
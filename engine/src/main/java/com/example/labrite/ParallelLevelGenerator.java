@@ -0,0 +1,291 @@
+package com.example.labrite;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.BooleanSupplier;
+
+// Раздаёт генерацию кандидатов ограниченному пулу потоков. Каждый поток
+// строит и решает кандидатов на своём собственном поле; как только найден
+// кандидат, прошедший порог, попытки с большими номерами прекращаются.
+final class ParallelLevelGenerator {
+
+    // Порог приёма кандидата и бюджет поиска, как в прежнем однопоточном цикле
+    static final int MIN_ACCEPTED_MOVES = 3;
+    static final long TIME_BUDGET_MS = 700;
+    static final int MAX_ATTEMPTS = 60;
+    // Обратное построение: сколько зёрен пробовать и с какого номера попытки
+    // (отрицательные номера не пересекаются с перебором)
+    private static final int BACKWARD_TRIES = 3;
+    private static final int BACKWARD_FIRST_ATTEMPT = -1;
+    // Число ходов, которое записывается в запасной уровень вместо настоящего
+    static final int FALLBACK_MIN_MOVES = 4;
+    // Номер попытки запасного уровня в Level.attempt: FALLBACK_ATTEMPT + номер кандидата
+    static final int FALLBACK_ATTEMPT = MAX_ATTEMPTS;
+
+    private final int workerCount;
+    private final ExecutorService pool;
+    // Предзагрузка и пополнение хранилища идут на своём пуле с низким
+    // приоритетом: уровень, которого ждёт игрок, не стоит в очереди за ними
+    private final ExecutorService backgroundPool;
+    // Генератор привязан к потоку пула, чтобы массивы решателя не пересоздавались
+    private final ThreadLocal<LevelGenerator> generators = new ThreadLocal<>();
+    private final GenerationStats stats;
+    // Решатель minMoves для всех генераторов потоков; минимум ходов от него не
+    // зависит, меняется только скорость, поэтому уровни те же
+    private volatile LevelGenerator.SolverKind solverKind = LevelGenerator.SolverKind.AUTO;
+
+    ParallelLevelGenerator() {
+        this(defaultWorkerCount());
+    }
+
+    ParallelLevelGenerator(int workerCount) {
+        this(workerCount, new GenerationStats());
+    }
+
+    // Счётчики можно передать снаружи, чтобы они пережили сам генератор
+    ParallelLevelGenerator(int workerCount, GenerationStats stats) {
+        this.workerCount = Math.max(1, workerCount);
+        this.stats = stats;
+        this.pool = newPool(this.workerCount, "LevelGen-", Thread.NORM_PRIORITY - 1);
+        this.backgroundPool = newPool(this.workerCount, "LevelGenBg-", Thread.MIN_PRIORITY);
+    }
+
+    private static ExecutorService newPool(int workers, final String name, final int priority) {
+        return Executors.newFixedThreadPool(workers, new ThreadFactory() {
+            private final AtomicInteger counter = new AtomicInteger();
+
+            @Override
+            public Thread newThread(Runnable runnable) {
+                Thread thread = new Thread(runnable, name + counter.incrementAndGet());
+                thread.setDaemon(true);
+                thread.setPriority(priority);
+                return thread;
+            }
+        });
+    }
+
+    // Оставляем одно ядро под UI-поток
+    static int defaultWorkerCount() {
+        return Math.max(1, Runtime.getRuntime().availableProcessors() - 1);
+    }
+
+    int getWorkerCount() {
+        return workerCount;
+    }
+
+    GenerationStats getStats() {
+        return stats;
+    }
+
+    void setSolverKind(LevelGenerator.SolverKind solverKind) {
+        this.solverKind = solverKind;
+    }
+
+    LevelGenerator.SolverKind getSolverKind() {
+        return solverKind;
+    }
+
+    // Блокирующий вызов: пробует построить уровень ровно нужной сложности
+    // обратным ходом, иначе перебирает кандидатов. Возвращает подходящий уровень, а если бюджет
+    // исчерпан — последнего кандидата с подстраховочными числами ходов.
+    // Попытка i строится из зерна forAttempt(levelSeed, i), а побеждает
+    // подходящая попытка с наименьшим номером, поэтому, пока перебор укладывается
+    // в срок, результат не зависит от числа потоков и от того, кто успел первым.
+    // Срок — время, так что на медленном устройстве победить может другая попытка;
+    // её номер записывается в Level.attempt, и rebuild повторяет её без срока.
+    Level generate(int level, int maxMoves, int gridWidth, int gridHeight,
+                   long levelSeed) throws InterruptedException {
+        return generate(level, maxMoves, gridWidth, gridHeight, levelSeed, null);
+    }
+
+    // То же, но вызывающий может отозвать задачу: флаг проверяется внутри циклов
+    // попыток, и вместо уровня бросается CancellationException
+    Level generate(int level, int maxMoves, int gridWidth, int gridHeight,
+                   long levelSeed, BooleanSupplier cancelled) throws InterruptedException {
+        Tracer.beginSection("LevelGen.generate");
+        try {
+            return search(pool, level, maxMoves, gridWidth, gridHeight, levelSeed, cancelled);
+        } finally {
+            Tracer.endSection();
+        }
+    }
+
+    // То же для работы впрок (предзагрузка, хранилище): перебор идёт на фоновом пуле
+    Level generateInBackground(int level, int maxMoves, int gridWidth, int gridHeight,
+                               long levelSeed) throws InterruptedException {
+        Tracer.beginSection("LevelGen.background");
+        try {
+            return search(backgroundPool, level, maxMoves, gridWidth, gridHeight, levelSeed, null);
+        } finally {
+            Tracer.endSection();
+        }
+    }
+
+    private Level search(ExecutorService workers, final int level, final int maxMoves, final int gridWidth, final int gridHeight,
+                         final long levelSeed, final BooleanSupplier cancelled) throws InterruptedException {
+        final long startNanos = System.nanoTime();
+        // Сначала обратное построение на вызывающем потоке: один обратный и один
+        // прямой поиск вместо сотен проверок. Перебор кандидатов остаётся запасным путём.
+        LevelGenerator backward = generatorFor(gridWidth, gridHeight);
+        int targetMoves = LevelGenerator.targetMovesFor(level);
+        // Устаревшая загрузка обрывает и обратное построение, а не ждёт его конца;
+        // генератор потока переиспользуется, поэтому проверка снимается в finally
+        backward.setCancellation(cancelled);
+        try {
+            for (int i = 0; i < BACKWARD_TRIES; i++) {
+                stats.onAttempt();
+                int exact = backward.generateBackward(level,
+                        LevelSeeds.forAttempt(levelSeed, BACKWARD_FIRST_ATTEMPT - i), targetMoves);
+                if (cancelled != null && cancelled.getAsBoolean()) {
+                    throw new CancellationException("Level " + level + " generation superseded");
+                }
+                if (exact >= MIN_ACCEPTED_MOVES) {
+                    Level built = backward.snapshot(levelSeed, BACKWARD_FIRST_ATTEMPT - i, exact,
+                            Math.max(maxMoves, exact + 2));
+                    stats.onLevel(exact, GenerationMetrics.Source.BACKWARD, System.nanoTime() - startNanos);
+                    Tracer.d("level %d: backward, %d moves, try %d", level, exact, i);
+                    return built;
+                }
+                stats.onRejected(GenerationMetrics.Rejection.BACKWARD_SHALLOW);
+            }
+        } finally {
+            backward.setCancellation(null);
+        }
+
+        final long deadline = System.currentTimeMillis() + TIME_BUDGET_MS;
+        final AtomicInteger nextAttempt = new AtomicInteger();
+        final AtomicInteger bestAttempt = new AtomicInteger(Integer.MAX_VALUE);
+        final AtomicInteger lastFailedAttempt = new AtomicInteger(-1);
+        final AtomicBoolean stopped = new AtomicBoolean();
+        final BooleanSupplier superseded = cancelled != null ? cancelled : () -> false;
+        final AtomicReferenceArray<Level> accepted = new AtomicReferenceArray<>(MAX_ATTEMPTS);
+
+        List<Future<?>> futures = new ArrayList<>(workerCount);
+        for (int i = 0; i < workerCount; i++) {
+            futures.add(workers.submit(new Runnable() {
+                @Override
+                public void run() {
+                    LevelGenerator generator = generatorFor(gridWidth, gridHeight);
+                    final int[] current = new int[1];
+                    // Попытку есть смысл достраивать, только пока она может оказаться лучшей
+                    generator.setCancellation(() -> stopped.get() || current[0] > bestAttempt.get()
+                            || superseded.getAsBoolean());
+                    try {
+                        while (!stopped.get() && !superseded.getAsBoolean()
+                                && System.currentTimeMillis() < deadline) {
+                            int attempt = nextAttempt.getAndIncrement();
+                            if (attempt >= MAX_ATTEMPTS || attempt > bestAttempt.get()) {
+                                return;
+                            }
+                            current[0] = attempt;
+                            int minMoves = generator.generateCandidate(level,
+                                    LevelSeeds.forAttempt(levelSeed, attempt));
+                            stats.onAttempt();
+                            if (stopped.get() || attempt > bestAttempt.get()) {
+                                stats.onRejected(GenerationMetrics.Rejection.SUPERSEDED);
+                                return;
+                            }
+                            if (minMoves >= MIN_ACCEPTED_MOVES) {
+                                accepted.set(attempt, generator.snapshot(levelSeed, attempt, minMoves,
+                                        Math.max(maxMoves, minMoves + 2)));
+                                bestAttempt.accumulateAndGet(attempt, Math::min);
+                                return;
+                            }
+                            stats.onRejected(minMoves < 0 ? GenerationMetrics.Rejection.UNREACHABLE
+                                    : GenerationMetrics.Rejection.TOO_FEW_MOVES);
+                            lastFailedAttempt.accumulateAndGet(attempt, Math::max);
+                        }
+                    } finally {
+                        generator.setCancellation(null);
+                    }
+                }
+            }));
+        }
+
+        try {
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } catch (ExecutionException e) {
+            stopped.set(true);
+            throw new IllegalStateException("Level generation failed", e.getCause());
+        } catch (InterruptedException e) {
+            // Вызвавший поток больше не ждёт результата — останавливаем рабочих
+            stopped.set(true);
+            throw e;
+        }
+
+        if (superseded.getAsBoolean()) {
+            throw new CancellationException("Level " + level + " generation superseded");
+        }
+        int best = bestAttempt.get();
+        if (best != Integer.MAX_VALUE) {
+            Level found = accepted.get(best);
+            stats.onLevel(found.minMoves, GenerationMetrics.Source.SEARCH, System.nanoTime() - startNanos);
+            Tracer.d("level %d: search, %d moves, attempt %d", level, found.minMoves, best);
+            return found;
+        }
+        // Подходящих нет: как и раньше, берём последнего кандидата с запасом ходов.
+        // Его дешевле перестроить по зерну, чем копировать поле после каждой неудачи.
+        // В счётчики идёт настоящий минимум ходов, а не подстраховочные 4.
+        if (System.currentTimeMillis() >= deadline) {
+            stats.onTimeout();
+        }
+        int fallbackAttempt = Math.max(0, lastFailedAttempt.get());
+        LevelGenerator generator = generatorFor(gridWidth, gridHeight);
+        int fallbackMoves = generator.generateCandidate(level, LevelSeeds.forAttempt(levelSeed, fallbackAttempt));
+        Level fallback = generator.snapshot(levelSeed, FALLBACK_ATTEMPT + fallbackAttempt, FALLBACK_MIN_MOVES,
+                Math.max(maxMoves, 6));
+        stats.onRejected(GenerationMetrics.Rejection.BUDGET_EXHAUSTED);
+        stats.onLevel(fallbackMoves, GenerationMetrics.Source.FALLBACK, System.nanoTime() - startNanos);
+        Tracer.w("level %d: budget exhausted, fallback attempt %d has %d moves", level, fallbackAttempt, fallbackMoves);
+        return fallback;
+    }
+
+    // Строит заново уровень, который когда-то вернул generate: ровно попытку
+    // Level.attempt, без перебора и без сроков, на вызывающем потоке. Результат
+    // зависит только от параметров, зерна и номера попытки.
+    Level rebuild(int level, int maxMoves, int gridWidth, int gridHeight, long levelSeed, int attempt) {
+        if (attempt == Level.NO_ATTEMPT) {
+            throw new IllegalArgumentException("Level " + level + " has no recorded attempt");
+        }
+        LevelGenerator generator = generatorFor(gridWidth, gridHeight);
+        if (attempt < 0) {
+            int exact = generator.generateBackward(level, LevelSeeds.forAttempt(levelSeed, attempt),
+                    LevelGenerator.targetMovesFor(level));
+            return generator.snapshot(levelSeed, attempt, exact, Math.max(maxMoves, exact + 2));
+        }
+        if (attempt >= FALLBACK_ATTEMPT) {
+            generator.generateCandidate(level, LevelSeeds.forAttempt(levelSeed, attempt - FALLBACK_ATTEMPT));
+            return generator.snapshot(levelSeed, attempt, FALLBACK_MIN_MOVES, Math.max(maxMoves, 6));
+        }
+        int minMoves = generator.generateCandidate(level, LevelSeeds.forAttempt(levelSeed, attempt));
+        return generator.snapshot(levelSeed, attempt, minMoves, Math.max(maxMoves, minMoves + 2));
+    }
+
+    void shutdown() {
+        pool.shutdownNow();
+        backgroundPool.shutdownNow();
+    }
+
+    private LevelGenerator generatorFor(int gridWidth, int gridHeight) {
+        LevelGenerator generator = generators.get();
+        if (generator == null || generator.getGridWidth() != gridWidth
+                || generator.getGridHeight() != gridHeight) {
+            generator = new LevelGenerator(gridWidth, gridHeight);
+            generator.setMetrics(stats);
+            generators.set(generator);
+        }
+        generator.setSolverKind(solverKind);
+        return generator;
+    }
+}
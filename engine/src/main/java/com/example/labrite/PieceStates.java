@@ -0,0 +1,45 @@
+package com.example.labrite;
+
+// Положение нескольких одинаковых шаров, упакованное в один long: по 16 бит
+// на клетку, до четырёх шаров, поэтому поле не больше 65536 клеток (256x256).
+// Шары взаимозаменяемы, так что состояние хранится в каноническом виде —
+// клетки по возрастанию, младшая в младших битах. Одинаковые расстановки
+// с переставленными шарами дают одно и то же число.
+final class PieceStates {
+
+    static final int MAX_PIECES = 4;
+    static final int BITS = 16;
+    static final int MAX_CELLS = 1 << BITS;
+    private static final int CELL_MASK = MAX_CELLS - 1;
+
+    private PieceStates() {
+    }
+
+    // Сортирует первые count клеток на месте и упаковывает их
+    static long canonical(int[] cells, int count) {
+        for (int i = 1; i < count; i++) {
+            int cell = cells[i];
+            int j = i - 1;
+            while (j >= 0 && cells[j] > cell) {
+                cells[j + 1] = cells[j];
+                j--;
+            }
+            cells[j + 1] = cell;
+        }
+        long state = 0;
+        for (int i = 0; i < count; i++) {
+            state |= (long) cells[i] << (i * BITS);
+        }
+        return state;
+    }
+
+    static int cell(long state, int index) {
+        return (int) (state >>> (index * BITS)) & CELL_MASK;
+    }
+
+    static void unpack(long state, int count, int[] cells) {
+        for (int i = 0; i < count; i++) {
+            cells[i] = cell(state, i);
+        }
+    }
+}
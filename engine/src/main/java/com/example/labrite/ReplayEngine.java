@@ -0,0 +1,282 @@
+package com.example.labrite;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Проигрывает записанные партии без View: уровень заново строится из зерна
+// и принятой попытки записи, сверяется с её отпечатком, свайпы применяются
+// по правилам LevelPlay, а итог сравнивается с записанным. Нужен, чтобы проверить изменение правил на настоящих партиях
+// и детерминированно воспроизвести присланную запись.
+//
+// Дорого здесь только построение уровня, поэтому уровни запоминаются по
+// параметрам генерации: повторный прогон того же набора записей (после
+// правки правил) и записи одного уровня идут без генерации. Сам повтор
+// ходов ничего не выделяет, и записи раздаются потокам пачками.
+final class ReplayEngine {
+
+    // Откуда брать уровень записи; вызывается из рабочих потоков одновременно
+    interface LevelSource {
+        Level build(SessionLog log) throws InterruptedException;
+    }
+
+    enum Verdict {
+        MATCH,
+        // Уровень тот же, а партия кончилась иначе: разошлись правила
+        OUTCOME_MISMATCH,
+        // Уровень построился не таким, каким его видел игрок
+        LEVEL_MISMATCH,
+        // Уровень не удалось построить
+        FAILED
+    }
+
+    // Сколько уровней держать в памяти; сверх этого уровни строятся без запоминания
+    static final int DEFAULT_CACHE_LEVELS = 4096;
+    // Записей на одну выдачу потоку: меньше — дороже раздача, больше — хуже баланс
+    private static final int CHUNK = 256;
+    private static final Direction[] DIRECTIONS = Direction.values();
+
+    private final LevelSource source;
+    private final int cacheLimit;
+    private final ConcurrentHashMap<LevelKey, Future<Level>> levels = new ConcurrentHashMap<>();
+    private final int workerCount;
+    private final ExecutorService pool;
+
+    ReplayEngine(int workerCount, LevelSource source) {
+        this(workerCount, source, DEFAULT_CACHE_LEVELS);
+    }
+
+    ReplayEngine(int workerCount, LevelSource source, int cacheLimit) {
+        this.source = source;
+        this.cacheLimit = cacheLimit;
+        this.workerCount = Math.max(1, workerCount);
+        this.pool = Executors.newFixedThreadPool(this.workerCount, new ThreadFactory() {
+            private final AtomicInteger counter = new AtomicInteger();
+
+            @Override
+            public Thread newThread(Runnable runnable) {
+                Thread thread = new Thread(runnable, "Replay-" + counter.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+    }
+
+    // Уровни тем же генератором, что и в игре: для одного шара ровно записанная
+    // попытка ParallelLevelGenerator.rebuild (перебор со сроком мог бы принять
+    // другую), MultiPieceGenerator (свой на каждый поток) для нескольких
+    static LevelSource generating(final ParallelLevelGenerator generator) {
+        final ThreadLocal<MultiPieceGenerator> multiPiece = new ThreadLocal<>();
+        return log -> {
+            if (log.pieceCount == 1) {
+                if (log.attempt != Level.NO_ATTEMPT) {
+                    return generator.rebuild(log.level, log.maxMoves, log.gridWidth, log.gridHeight, log.seed,
+                            log.attempt);
+                }
+                // Запись версии 1 или уровень не из генератора: попытка не известна
+                return generator.generate(log.level, log.maxMoves, log.gridWidth, log.gridHeight, log.seed);
+            }
+            MultiPieceGenerator multi = multiPiece.get();
+            if (multi == null || multi.getGridWidth() != log.gridWidth || multi.getGridHeight() != log.gridHeight) {
+                multi = new MultiPieceGenerator(log.gridWidth, log.gridHeight);
+                multiPiece.set(multi);
+            }
+            return multi.generate(log.level, log.pieceCount, log.maxMoves, log.seed);
+        };
+    }
+
+    int getWorkerCount() {
+        return workerCount;
+    }
+
+    int getCachedLevels() {
+        return levels.size();
+    }
+
+    // Проигрывает одну запись; play остаётся в конечном состоянии повтора,
+    // чтобы запись из отчёта об ошибке можно было разобрать по шагам
+    Verdict replay(SessionLog log, LevelPlay play) throws InterruptedException {
+        Level level;
+        try {
+            level = levelFor(log);
+        } catch (ExecutionException e) {
+            Tracer.w("replay level %d seed %d failed", log.level, log.seed);
+            return Verdict.FAILED;
+        }
+        if (level.minMoves != log.minMoves || level.movesLeft != log.startMovesLeft
+                || level.getPieceCount() != log.pieceCount
+                || (log.fingerprint != SessionLog.NO_FINGERPRINT && level.fingerprint != log.fingerprint)) {
+            return Verdict.LEVEL_MISMATCH;
+        }
+        play.reset(level);
+        for (int i = 0, count = log.getMoveCount(); i < count; i++) {
+            // В запись попадают только засчитанные ходы, поэтому ход без движения
+            // или после конца уровня — уже расхождение
+            if (!play.move(DIRECTIONS[log.getMove(i)])) {
+                return Verdict.OUTCOME_MISMATCH;
+            }
+        }
+        return play.getOutcome() == log.outcome && play.getMovesLeft() == log.movesLeft
+                ? Verdict.MATCH : Verdict.OUTCOME_MISMATCH;
+    }
+
+    // Проигрывает все записи на пуле потоков; вердикт i-й записи — в отчёте под тем же номером
+    Report replayAll(final List<SessionLog> logs) throws InterruptedException {
+        long started = System.nanoTime();
+        final int total = logs.size();
+        final byte[] verdicts = new byte[total];
+        final AtomicInteger cursor = new AtomicInteger();
+        List<Future<?>> parts = new ArrayList<>(workerCount);
+        for (int i = 0; i < workerCount; i++) {
+            parts.add(pool.submit(() -> {
+                LevelPlay play = new LevelPlay();
+                int from;
+                while ((from = cursor.getAndAdd(CHUNK)) < total) {
+                    for (int k = from, to = Math.min(total, from + CHUNK); k < to; k++) {
+                        verdicts[k] = (byte) replay(logs.get(k), play).ordinal();
+                    }
+                }
+                return null;
+            }));
+        }
+        try {
+            for (Future<?> part : parts) {
+                part.get();
+            }
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Replay worker failed", e.getCause());
+        } finally {
+            for (Future<?> part : parts) {
+                part.cancel(true);
+            }
+        }
+        return new Report(verdicts, System.nanoTime() - started);
+    }
+
+    // Строит уровень один раз на набор параметров; остальные потоки с тем же
+    // уровнем ждут первую постройку, а не повторяют её
+    private Level levelFor(final SessionLog log) throws InterruptedException, ExecutionException {
+        LevelKey key = new LevelKey(log);
+        Future<Level> future = levels.get(key);
+        if (future == null) {
+            FutureTask<Level> task = new FutureTask<>(() -> source.build(log));
+            if (levels.size() >= cacheLimit) {
+                task.run();
+                return task.get();
+            }
+            future = levels.putIfAbsent(key, task);
+            if (future == null) {
+                future = task;
+                task.run();
+            }
+        }
+        try {
+            return future.get();
+        } catch (ExecutionException e) {
+            // Неудачная постройка не запоминается: следующий прогон попробует снова
+            levels.remove(key, future);
+            throw e;
+        }
+    }
+
+    void clearCache() {
+        levels.clear();
+    }
+
+    void shutdown() {
+        pool.shutdownNow();
+    }
+
+    // Итог прогона: вердикт каждой записи и сводка
+    static final class Report {
+
+        private final byte[] verdicts;
+        private final int[] counts = new int[Verdict.values().length];
+        private final long nanos;
+
+        Report(byte[] verdicts, long nanos) {
+            this.verdicts = verdicts;
+            this.nanos = nanos;
+            for (byte verdict : verdicts) {
+                counts[verdict]++;
+            }
+        }
+
+        int getSessions() {
+            return verdicts.length;
+        }
+
+        Verdict getVerdict(int index) {
+            return Verdict.values()[verdicts[index]];
+        }
+
+        int count(Verdict verdict) {
+            return counts[verdict.ordinal()];
+        }
+
+        long getNanos() {
+            return nanos;
+        }
+
+        double sessionsPerSecond() {
+            return verdicts.length * 1e9 / Math.max(1, nanos);
+        }
+
+        String formatReport() {
+            StringBuilder out = new StringBuilder();
+            out.append(String.format(Locale.ROOT, "sessions: %d in %.3f s, %.0f sessions/s%n",
+                    getSessions(), nanos / 1e9, sessionsPerSecond()));
+            out.append("verdicts:");
+            for (Verdict verdict : Verdict.values()) {
+                out.append(' ').append(verdict).append('=').append(count(verdict));
+            }
+            out.append(String.format("%n"));
+            return out.toString();
+        }
+    }
+
+    private static final class LevelKey {
+        private final int level;
+        private final int maxMoves;
+        private final int gridWidth;
+        private final int gridHeight;
+        private final int pieceCount;
+        private final long seed;
+        private final int attempt;
+
+        LevelKey(SessionLog log) {
+            this.level = log.level;
+            this.maxMoves = log.maxMoves;
+            this.gridWidth = log.gridWidth;
+            this.gridHeight = log.gridHeight;
+            this.pieceCount = log.pieceCount;
+            this.seed = log.seed;
+            this.attempt = log.attempt;
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            if (!(other instanceof LevelKey)) {
+                return false;
+            }
+            LevelKey key = (LevelKey) other;
+            return seed == key.seed && attempt == key.attempt && level == key.level && maxMoves == key.maxMoves
+                    && gridWidth == key.gridWidth && gridHeight == key.gridHeight && pieceCount == key.pieceCount;
+        }
+
+        @Override
+        public int hashCode() {
+            long hash = LevelSeeds.mix64(seed ^ ((long) level << 32 ^ maxMoves)
+                    ^ ((long) gridWidth << 48 ^ (long) gridHeight << 24 ^ pieceCount) ^ (long) attempt << 40);
+            return (int) (hash ^ (hash >>> 32));
+        }
+    }
+}
@@ -0,0 +1,125 @@
+package com.example.labrite;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+// Проигрывает журналы партий на JVM без Android тем же ReplayEngine и печатает,
+// сколько записей сошлось, какие нет и с какой скоростью шёл повтор.
+// Журнал берётся с устройства (files/sessions.bin и files/sessions.bin.1).
+//
+//   --in a.bin,b.bin  журналы
+//   --threads N       потоков повтора (по умолчанию все ядра)
+//   --workers N       потоков перебора внутри построения одного уровня
+//   --repeat K        прогнать набор K раз: со второго раза уровни уже в памяти
+//   --show N          сколько расхождений расписать подробно
+public final class ReplaySessions {
+
+    private final List<String> inputs = new ArrayList<>();
+    private int threads = Runtime.getRuntime().availableProcessors();
+    private int workers = ParallelLevelGenerator.defaultWorkerCount();
+    private int repeat = 1;
+    private int show = 10;
+
+    private ReplaySessions() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        ReplaySessions replay = new ReplaySessions();
+        try {
+            replay.parse(args);
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.exit(2);
+            return;
+        }
+        replay.run(System.out);
+    }
+
+    private void parse(String[] args) {
+        for (int i = 0; i < args.length; i++) {
+            String name = args[i];
+            if (i + 1 >= args.length) {
+                throw new IllegalArgumentException("Missing value for " + name);
+            }
+            String value = args[++i];
+            switch (name) {
+                case "--in":
+                    for (String part : value.split(",")) {
+                        inputs.add(part.trim());
+                    }
+                    break;
+                case "--threads":
+                    threads = Integer.parseInt(value);
+                    break;
+                case "--workers":
+                    workers = Integer.parseInt(value);
+                    break;
+                case "--repeat":
+                    repeat = Integer.parseInt(value);
+                    break;
+                case "--show":
+                    show = Integer.parseInt(value);
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown option " + name);
+            }
+        }
+        if (inputs.isEmpty()) {
+            throw new IllegalArgumentException("No session logs given, use --in file.bin");
+        }
+        if (threads < 1 || workers < 1 || repeat < 1 || show < 0) {
+            throw new IllegalArgumentException("Invalid threads/workers/repeat/show");
+        }
+    }
+
+    private void run(PrintStream report) throws IOException, InterruptedException {
+        List<SessionLog> logs = new ArrayList<>();
+        for (String input : inputs) {
+            logs.addAll(SessionLog.readAll(new File(input)));
+        }
+        ParallelLevelGenerator generator = new ParallelLevelGenerator(workers);
+        ReplayEngine engine = new ReplayEngine(threads, ReplayEngine.generating(generator));
+        try {
+            ReplayEngine.Report last = null;
+            for (int round = 1; round <= repeat; round++) {
+                last = engine.replayAll(logs);
+                report.printf(Locale.ROOT, "round %d (%d threads, %d levels cached)%n", round, threads,
+                        engine.getCachedLevels());
+                for (String line : last.formatReport().split("\\R")) {
+                    report.println("  " + line);
+                }
+            }
+            printMismatches(report, engine, logs, last);
+        } finally {
+            engine.shutdown();
+            generator.shutdown();
+        }
+    }
+
+    // Повторяет расходящиеся записи по одной и печатает, чем кончился повтор
+    private void printMismatches(PrintStream report, ReplayEngine engine, List<SessionLog> logs,
+                                 ReplayEngine.Report result) throws InterruptedException {
+        LevelPlay play = new LevelPlay();
+        int shown = 0;
+        for (int i = 0; i < logs.size() && shown < show; i++) {
+            ReplayEngine.Verdict verdict = result.getVerdict(i);
+            if (verdict == ReplayEngine.Verdict.MATCH) {
+                continue;
+            }
+            shown++;
+            SessionLog log = logs.get(i);
+            report.printf(Locale.ROOT,
+                    "#%d %s: level=%d size=%dx%d pieces=%d seed=%d attempt=%d moves=%d recorded=%s/%d",
+                    i, verdict, log.level, log.gridWidth, log.gridHeight, log.pieceCount, log.seed,
+                    log.attempt, log.getMoveCount(), log.outcome, log.movesLeft);
+            if (engine.replay(log, play) == ReplayEngine.Verdict.OUTCOME_MISMATCH) {
+                report.printf(Locale.ROOT, " replayed=%s/%d", play.getOutcome(), play.getMovesLeft());
+            }
+            report.println();
+        }
+    }
+}
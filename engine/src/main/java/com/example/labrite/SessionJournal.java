@@ -0,0 +1,69 @@
+package com.example.labrite;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+// Журнал сыгранных уровней в приватном файле приложения: записи SessionLog
+// подряд, только дозапись. Запись на диск идёт в своём фоновом потоке, чтобы
+// не трогать диск из UI-потока. Когда файл дорастает до MAX_FILE_BYTES, он
+// переименовывается в <имя>.1 (прежний .1 теряется), так что на диске не
+// больше двух файлов. Оборванная последняя запись при чтении пропускается.
+final class SessionJournal {
+
+    static final long MAX_FILE_BYTES = 1 << 20;
+
+    private final File file;
+    private final ExecutorService writer = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "SessionLog");
+        thread.setDaemon(true);
+        thread.setPriority(Thread.MIN_PRIORITY);
+        return thread;
+    });
+
+    SessionJournal(File file) {
+        this.file = file;
+    }
+
+    File getFile() {
+        return file;
+    }
+
+    File getRotatedFile() {
+        return new File(file.getPath() + ".1");
+    }
+
+    void append(final SessionLog log) {
+        writer.execute(() -> {
+            try {
+                if (file.length() >= MAX_FILE_BYTES) {
+                    File rotated = getRotatedFile();
+                    rotated.delete();
+                    file.renameTo(rotated);
+                }
+                try (DataOutputStream out = new DataOutputStream(
+                        new BufferedOutputStream(new FileOutputStream(file, true)))) {
+                    log.write(out);
+                }
+            } catch (IOException e) {
+                // Журнал — диагностика: без него игра продолжается как обычно
+                Tracer.w("session log write failed level=%d", log.level);
+            }
+        });
+    }
+
+    // Дописывает то, что уже поставлено в очередь, и останавливает поток
+    void close() {
+        writer.shutdown();
+        try {
+            writer.awaitTermination(1, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,157 @@
+package com.example.labrite;
+
+import java.io.BufferedInputStream;
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.DataOutput;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+// Запись одного сыгранного уровня: по чему уровень строился заново и какие
+// свайпы сделал игрок, по байту на свайп (Direction.ordinal()). Уровень не
+// хранится — его заново строит генератор из зерна и номера принятой попытки,
+// поэтому запись занимает ~40 байт плюс число ходов. minMoves, начальный
+// запас ходов и отпечаток поля (Level.fingerprint) — контроль: если
+// перестроенный уровень с ними не совпал, расхождение в генерации, а не в правилах.
+//
+// Формат записи (DataOutput, big-endian):
+//   byte version, int level, short maxMoves, short width, short height, byte pieces,
+//   long seed, int attempt, long fingerprint, short minMoves, short startMovesLeft,
+//   byte outcome, short movesLeft, short moveCount, byte[moveCount] moves
+// Версия 1 — то же без attempt и fingerprint; такие записи читаются с
+// Level.NO_ATTEMPT и NO_FINGERPRINT.
+final class SessionLog {
+
+    static final int VERSION = 2;
+    // Отпечаток не записан (версия 1): поле сверяется только по minMoves
+    static final long NO_FINGERPRINT = 0;
+    // Запас ходов не бывает больше, а лишние свайпы после конца уровня не пишутся
+    static final int MAX_MOVES = 0xFFFF;
+
+    final int level;
+    final int maxMoves;
+    final int gridWidth;
+    final int gridHeight;
+    final int pieceCount;
+    final long seed;
+    final int attempt;
+    final long fingerprint;
+    final int minMoves;
+    final int startMovesLeft;
+    final LevelPlay.Outcome outcome;
+    final int movesLeft;
+    // Не меняется после конструктора
+    private final byte[] moves;
+
+    SessionLog(int level, int maxMoves, int gridWidth, int gridHeight, int pieceCount, long seed,
+               int attempt, long fingerprint, int minMoves, int startMovesLeft, LevelPlay.Outcome outcome,
+               int movesLeft, byte[] moves, int moveCount) {
+        if (moveCount > MAX_MOVES) {
+            throw new IllegalArgumentException("Too many moves: " + moveCount);
+        }
+        this.level = level;
+        this.maxMoves = maxMoves;
+        this.gridWidth = gridWidth;
+        this.gridHeight = gridHeight;
+        this.pieceCount = pieceCount;
+        this.seed = seed;
+        this.attempt = attempt;
+        this.fingerprint = fingerprint;
+        this.minMoves = minMoves;
+        this.startMovesLeft = startMovesLeft;
+        this.outcome = outcome;
+        this.movesLeft = movesLeft;
+        this.moves = new byte[moveCount];
+        System.arraycopy(moves, 0, this.moves, 0, moveCount);
+    }
+
+    int getMoveCount() {
+        return moves.length;
+    }
+
+    // Направление хода как Direction.ordinal()
+    int getMove(int index) {
+        return moves[index];
+    }
+
+    void write(DataOutput out) throws IOException {
+        out.writeByte(VERSION);
+        out.writeInt(level);
+        out.writeShort(maxMoves);
+        out.writeShort(gridWidth);
+        out.writeShort(gridHeight);
+        out.writeByte(pieceCount);
+        out.writeLong(seed);
+        out.writeInt(attempt);
+        out.writeLong(fingerprint);
+        out.writeShort(minMoves);
+        out.writeShort(startMovesLeft);
+        out.writeByte(outcome.ordinal());
+        out.writeShort(movesLeft);
+        out.writeShort(moves.length);
+        out.write(moves);
+    }
+
+    // Читает запись, первый байт которой (версия) уже прочитан
+    private static SessionLog readBody(DataInput in, int version) throws IOException {
+        if (version != VERSION && version != 1) {
+            throw new IOException("Unsupported session log version " + version);
+        }
+        int level = in.readInt();
+        int maxMoves = in.readUnsignedShort();
+        int width = in.readUnsignedShort();
+        int height = in.readUnsignedShort();
+        int pieces = in.readUnsignedByte();
+        long seed = in.readLong();
+        int attempt = version == 1 ? Level.NO_ATTEMPT : in.readInt();
+        long fingerprint = version == 1 ? NO_FINGERPRINT : in.readLong();
+        // Короткие поля пишутся со знаком: minMoves бывает -1 у нерешаемого запасного уровня
+        int minMoves = in.readShort();
+        int startMovesLeft = in.readShort();
+        int outcome = in.readUnsignedByte();
+        int movesLeft = in.readShort();
+        int moveCount = in.readUnsignedShort();
+        LevelPlay.Outcome[] outcomes = LevelPlay.Outcome.values();
+        if (outcome >= outcomes.length || pieces < 1 || pieces > PieceStates.MAX_PIECES) {
+            throw new IOException("Corrupt session log record");
+        }
+        byte[] moves = new byte[moveCount];
+        in.readFully(moves);
+        for (byte move : moves) {
+            if (move < 0 || move >= SlideTable.DIRECTIONS) {
+                throw new IOException("Corrupt move " + move);
+            }
+        }
+        return new SessionLog(level, maxMoves, width, height, pieces, seed, attempt, fingerprint, minMoves,
+                startMovesLeft, outcomes[outcome], movesLeft, moves, moveCount);
+    }
+
+    // Следующая запись или null в конце потока. Оборванная последняя запись
+    // (процесс убит посреди дозаписи) тоже считается концом.
+    static SessionLog read(DataInputStream in) throws IOException {
+        int version = in.read();
+        if (version < 0) {
+            return null;
+        }
+        try {
+            return readBody(in, version);
+        } catch (EOFException e) {
+            return null;
+        }
+    }
+
+    static List<SessionLog> readAll(File file) throws IOException {
+        List<SessionLog> logs = new ArrayList<>();
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+            SessionLog log;
+            while ((log = read(in)) != null) {
+                logs.add(log);
+            }
+        }
+        return logs;
+    }
+}
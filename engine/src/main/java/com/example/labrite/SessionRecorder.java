@@ -0,0 +1,49 @@
+package com.example.labrite;
+
+// Копит свайпы текущего уровня и по его окончании отдаёт SessionLog.
+// Живёт в UI-потоке рядом с LevelPlay; буфер ходов переиспользуется.
+final class SessionRecorder {
+
+    private Level level;
+    private int levelNumber;
+    private int maxMoves;
+    private byte[] moves = new byte[64];
+    private int moveCount;
+
+    void begin(Level level, int levelNumber, int maxMoves) {
+        this.level = level;
+        this.levelNumber = levelNumber;
+        this.maxMoves = maxMoves;
+        moveCount = 0;
+    }
+
+    boolean isRecording() {
+        return level != null;
+    }
+
+    // Пишутся только засчитанные ходы: свайп в стену уровень не меняет
+    void onMove(Direction direction) {
+        if (level == null || moveCount >= SessionLog.MAX_MOVES) {
+            return;
+        }
+        if (moveCount == moves.length) {
+            byte[] grown = new byte[moves.length * 2];
+            System.arraycopy(moves, 0, grown, 0, moveCount);
+            moves = grown;
+        }
+        moves[moveCount++] = (byte) direction.ordinal();
+    }
+
+    // Закрывает запись уровня; null, если записи не было
+    SessionLog finish(LevelPlay.Outcome outcome, int movesLeft) {
+        if (level == null) {
+            return null;
+        }
+        SessionLog log = new SessionLog(levelNumber, maxMoves, level.getWidth(), level.getHeight(),
+                level.getPieceCount(), level.seed, level.attempt, level.fingerprint, level.minMoves,
+                level.movesLeft, outcome, movesLeft, moves, moveCount);
+        level = null;
+        moveCount = 0;
+        return log;
+    }
+}
@@ -0,0 +1,143 @@
+package com.example.labrite;
+
+import java.util.Arrays;
+
+// Переиспользуемый BFS по таблице переходов. Клетки кодируются int,
+// очередь и метки посещения выделяются один раз и растут только при
+// увеличении поля, поэтому после прогрева вызов ничего не аллоцирует.
+final class SlideSolver {
+
+    private static final Direction[] DIRECTIONS = Direction.values();
+
+    // Каждая клетка попадает в очередь не больше одного раза, поэтому
+    // массива на cells элементов хватает без переноса через край
+    private int[] queue = new int[0];
+    private int[] distance = new int[0];
+    // Откуда пришли в клетку: (предыдущая клетка << 2) | направление хода
+    private int[] parent = new int[0];
+    // Метка поколения вместо boolean[]: клетка посещена, если stamp == generation
+    private int[] stamp = new int[0];
+    private int generation;
+    private int visitedCount;
+    // Родители есть только после прямого поиска minMoves
+    private boolean hasParents;
+
+    // Минимальное число ходов из start в target или -1, если цель недостижима
+    int minMoves(SlideTable table, int start, int target) {
+        int cells = table.getWidth() * table.getHeight();
+        ensureCapacity(cells);
+        int mark = nextGeneration();
+        hasParents = true;
+
+        int head = 0;
+        int tail = 0;
+        queue[tail++] = start;
+        stamp[start] = mark;
+        distance[start] = 0;
+
+        while (head < tail) {
+            int current = queue[head++];
+            if (current == target) {
+                visitedCount = tail;
+                return distance[current];
+            }
+            int nextDistance = distance[current] + 1;
+            for (int d = 0; d < SlideTable.DIRECTIONS; d++) {
+                int next = table.stop(current, d);
+                if (stamp[next] != mark) {
+                    stamp[next] = mark;
+                    distance[next] = nextDistance;
+                    parent[next] = (current << 2) | d;
+                    queue[tail++] = next;
+                }
+            }
+        }
+        visitedCount = tail;
+        return -1;
+    }
+
+    // Обратный BFS от target по обратному отношению таблицы: после вызова
+    // distanceFrom(cell) — точный минимум ходов из любой клетки до target.
+    // Возвращает наибольшее из найденных расстояний.
+    int distancesTo(SlideTable table, int target) {
+        int cells = table.getWidth() * table.getHeight();
+        ensureCapacity(cells);
+        int mark = nextGeneration();
+        hasParents = false;
+
+        int head = 0;
+        int tail = 0;
+        queue[tail++] = target;
+        stamp[target] = mark;
+        distance[target] = 0;
+        int farthest = 0;
+
+        while (head < tail) {
+            int current = queue[head++];
+            int nextDistance = distance[current] + 1;
+            for (int d = 0; d < SlideTable.DIRECTIONS; d++) {
+                int from = table.reverseFrom(current, d);
+                if (from < 0) {
+                    continue;
+                }
+                // Все клетки отрезка приезжают в current одним ходом в направлении d
+                int step = table.step(d);
+                for (int cell = from; cell != current; cell += step) {
+                    if (stamp[cell] != mark) {
+                        stamp[cell] = mark;
+                        distance[cell] = nextDistance;
+                        queue[tail++] = cell;
+                        farthest = nextDistance;
+                    }
+                }
+            }
+        }
+        visitedCount = tail;
+        return farthest;
+    }
+
+    // Расстояние до цели из последнего distancesTo, или -1 если цель недостижима
+    int distanceFrom(int cell) {
+        return stamp[cell] == generation ? distance[cell] : -1;
+    }
+
+    // Оптимальная последовательность ходов до target по родителям последнего
+    // вызова minMoves; null, если target в нём не был достигнут
+    Direction[] pathTo(int target) {
+        if (!hasParents || target < 0 || target >= stamp.length || stamp[target] != generation) {
+            return null;
+        }
+        Direction[] path = new Direction[distance[target]];
+        int cell = target;
+        for (int i = path.length - 1; i >= 0; i--) {
+            int link = parent[cell];
+            path[i] = DIRECTIONS[link & 3];
+            cell = link >>> 2;
+        }
+        return path;
+    }
+
+    // Сколько клеток было помечено посещёнными в последнем вызове
+    int getVisitedCount() {
+        return visitedCount;
+    }
+
+    private void ensureCapacity(int cells) {
+        if (queue.length < cells) {
+            queue = new int[cells];
+            distance = new int[cells];
+            parent = new int[cells];
+            stamp = new int[cells];
+            generation = 0;
+        }
+    }
+
+    private int nextGeneration() {
+        if (++generation == 0) {
+            // Переполнение счётчика: сбрасываем метки один раз на 2^32 вызовов
+            Arrays.fill(stamp, 0);
+            generation = 1;
+        }
+        return generation;
+    }
+}
@@ -0,0 +1,143 @@
+package com.example.labrite;
+
+// Таблица переходов: для каждой клетки и каждого направления хранится клетка
+// остановки (упакованная как y * width + x). Строится одним линейным проходом
+// по строкам и столбцам, после чего любой ход — это одно чтение из массива.
+// Заодно строится обратное отношение: какие клетки приезжают в данную
+// клетку остановки при движении в данном направлении.
+final class SlideTable {
+
+    static final int DIRECTIONS = 4;
+
+    private final int width;
+    private final int height;
+    private final int[] stops;
+    // Для клетки остановки и направления — дальний конец отрезка, из любой
+    // клетки которого шар приезжает сюда, либо -1 если сюда никто не приезжает
+    private final int[] reverse;
+    private final int[] steps;
+
+    SlideTable(int width, int height) {
+        this.width = width;
+        this.height = height;
+        this.stops = new int[width * height * DIRECTIONS];
+        this.reverse = new int[width * height * DIRECTIONS];
+        // В порядке объявления Direction: UP, DOWN, LEFT, RIGHT
+        this.steps = new int[] {-width, width, -1, 1};
+    }
+
+    int getWidth() {
+        return width;
+    }
+
+    int getHeight() {
+        return height;
+    }
+
+    int cell(int x, int y) {
+        return y * width + x;
+    }
+
+    int cellX(int cell) {
+        return cell % width;
+    }
+
+    int cellY(int cell) {
+        return cell / width;
+    }
+
+    // Клетка, в которой остановится шар, начав движение из cell
+    int stop(int cell, Direction direction) {
+        return stops[cell * DIRECTIONS + direction.ordinal()];
+    }
+
+    int stop(int cell, int directionIndex) {
+        return stops[cell * DIRECTIONS + directionIndex];
+    }
+
+    // Обратный ход: все клетки от reverseFrom(cell, d) (включительно) до cell
+    // (не включая) при движении в направлении d останавливаются в cell.
+    // Возвращает -1, если таких клеток нет.
+    int reverseFrom(int cell, int directionIndex) {
+        return reverse[cell * DIRECTIONS + directionIndex];
+    }
+
+    // Шаг по упакованному индексу клетки в направлении
+    int step(int directionIndex) {
+        return steps[directionIndex];
+    }
+
+    void rebuild(LevelGrid grid) {
+        for (int y = 0; y < height; y++) {
+            updateRow(grid, y);
+        }
+        for (int x = 0; x < width; x++) {
+            updateColumn(grid, x);
+        }
+    }
+
+    // Одна новая/снятая стена меняет остановки только в своей строке и своём столбце
+    void onWallChanged(LevelGrid grid, int x, int y) {
+        updateRow(grid, y);
+        updateColumn(grid, x);
+    }
+
+    void updateRow(LevelGrid grid, int y) {
+        int base = y * width;
+        int x = 0;
+        while (x < width) {
+            int wall = grid.nextWallInRow(y, x);
+            // Свободный отрезок [x, wall - 1]: влево упираемся в x, вправо в wall - 1
+            int left = base + x;
+            int right = base + wall - 1;
+            for (int i = x; i < wall; i++) {
+                int index = (base + i) * DIRECTIONS;
+                stops[index + Direction.LEFT.ordinal()] = left;
+                stops[index + Direction.RIGHT.ordinal()] = right;
+                reverse[index + Direction.LEFT.ordinal()] = -1;
+                reverse[index + Direction.RIGHT.ordinal()] = -1;
+            }
+            if (wall - x > 1) {
+                reverse[left * DIRECTIONS + Direction.LEFT.ordinal()] = right;
+                reverse[right * DIRECTIONS + Direction.RIGHT.ordinal()] = left;
+            }
+            if (wall < width) {
+                // Из стены шар никуда не двигается
+                int index = (base + wall) * DIRECTIONS;
+                stops[index + Direction.LEFT.ordinal()] = base + wall;
+                stops[index + Direction.RIGHT.ordinal()] = base + wall;
+                reverse[index + Direction.LEFT.ordinal()] = -1;
+                reverse[index + Direction.RIGHT.ordinal()] = -1;
+            }
+            x = wall + 1;
+        }
+    }
+
+    void updateColumn(LevelGrid grid, int x) {
+        int y = 0;
+        while (y < height) {
+            int wall = grid.nextWallInColumn(x, y);
+            int top = y * width + x;
+            int bottom = (wall - 1) * width + x;
+            for (int i = y; i < wall; i++) {
+                int index = (i * width + x) * DIRECTIONS;
+                stops[index + Direction.UP.ordinal()] = top;
+                stops[index + Direction.DOWN.ordinal()] = bottom;
+                reverse[index + Direction.UP.ordinal()] = -1;
+                reverse[index + Direction.DOWN.ordinal()] = -1;
+            }
+            if (wall - y > 1) {
+                reverse[top * DIRECTIONS + Direction.UP.ordinal()] = bottom;
+                reverse[bottom * DIRECTIONS + Direction.DOWN.ordinal()] = top;
+            }
+            if (wall < height) {
+                int cell = wall * width + x;
+                stops[cell * DIRECTIONS + Direction.UP.ordinal()] = cell;
+                stops[cell * DIRECTIONS + Direction.DOWN.ordinal()] = cell;
+                reverse[cell * DIRECTIONS + Direction.UP.ordinal()] = -1;
+                reverse[cell * DIRECTIONS + Direction.DOWN.ordinal()] = -1;
+            }
+            y = wall + 1;
+        }
+    }
+}
@@ -0,0 +1,224 @@
+package com.example.labrite;
+
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Трассировка вместо Log.d. Сообщение — это константная строка формата и до
+// трёх чисел: на месте вызова ничего не склеивается и не упаковывается, а
+// запись кладёт ссылку на формат и числа в заранее выделенное кольцо.
+// Текст собирается только при выгрузке кольца.
+//
+// Уровни два раза: BUILD_LEVEL — константа сборки (TraceBuild создаёт
+// engine/build.gradle.kts; по умолчанию INFO, -Ptracer.buildLevel=3 включает
+// DEBUG), вызовы выше неё сводятся к пустому методу, который компилятор
+// выкидывает; уровень времени выполнения переключается на ходу и по умолчанию INFO.
+//
+// Секции (beginSection/endSection) уходят в подключённый приёмник — в
+// приложении это android.os.Trace, так что генерация, решатели и
+// отрисовка видны в системном профилировщике. Без приёмника секции ничего
+// не стоят.
+final class Tracer {
+
+    static final int OFF = 0;
+    static final int WARN = 1;
+    static final int INFO = 2;
+    static final int DEBUG = 3;
+
+    // Всё подробнее этого уровня не попадает даже в кольцо
+    static final int BUILD_LEVEL = TraceBuild.LEVEL;
+
+    // Приёмник секций: в приложении android.os.Trace, в тестах и на JVM — никакого
+    interface SectionSink {
+        void beginSection(String name);
+
+        void endSection();
+    }
+
+    // Размер кольца — степень двойки, номер слота берётся маской
+    static final int CAPACITY = 1024;
+    private static final int MASK = CAPACITY - 1;
+    private static final char[] LEVEL_NAMES = {'-', 'W', 'I', 'D'};
+
+    private static volatile int runtimeLevel = INFO;
+    private static volatile SectionSink sectionSink;
+
+    // Писатели из разных потоков занимают слоты по общему счётчику. Слот
+    // заполняется не атомарно, поэтому запись, которую перезаписывают прямо во
+    // время выгрузки, может выйти перемешанной — для отладочного журнала это
+    // допустимо, зато запись обходится без блокировок.
+    private static final AtomicLong sequence = new AtomicLong();
+    private static final long[] times = new long[CAPACITY];
+    private static final long[] threads = new long[CAPACITY];
+    private static final byte[] levels = new byte[CAPACITY];
+    private static final String[] formats = new String[CAPACITY];
+    private static final int[] argCounts = new int[CAPACITY];
+    private static final long[] args = new long[CAPACITY * 3];
+
+    private Tracer() {
+    }
+
+    static void setLevel(int level) {
+        runtimeLevel = Math.max(OFF, Math.min(DEBUG, level));
+    }
+
+    static int getLevel() {
+        return runtimeLevel;
+    }
+
+    static char levelName(int level) {
+        return LEVEL_NAMES[Math.max(OFF, Math.min(DEBUG, level))];
+    }
+
+    static boolean isEnabled(int level) {
+        return level <= BUILD_LEVEL && level <= runtimeLevel;
+    }
+
+    static void setSectionSink(SectionSink sink) {
+        sectionSink = sink;
+    }
+
+    static void beginSection(String name) {
+        SectionSink sink = sectionSink;
+        if (sink != null) {
+            sink.beginSection(name);
+        }
+    }
+
+    static void endSection() {
+        SectionSink sink = sectionSink;
+        if (sink != null) {
+            sink.endSection();
+        }
+    }
+
+    static void w(String format) {
+        if (isEnabled(WARN)) {
+            record(WARN, format, 0, 0, 0, 0);
+        }
+    }
+
+    static void w(String format, long a) {
+        if (isEnabled(WARN)) {
+            record(WARN, format, 1, a, 0, 0);
+        }
+    }
+
+    static void w(String format, long a, long b) {
+        if (isEnabled(WARN)) {
+            record(WARN, format, 2, a, b, 0);
+        }
+    }
+
+    static void w(String format, long a, long b, long c) {
+        if (isEnabled(WARN)) {
+            record(WARN, format, 3, a, b, c);
+        }
+    }
+
+    static void i(String format) {
+        if (isEnabled(INFO)) {
+            record(INFO, format, 0, 0, 0, 0);
+        }
+    }
+
+    static void i(String format, long a) {
+        if (isEnabled(INFO)) {
+            record(INFO, format, 1, a, 0, 0);
+        }
+    }
+
+    static void i(String format, long a, long b) {
+        if (isEnabled(INFO)) {
+            record(INFO, format, 2, a, b, 0);
+        }
+    }
+
+    static void i(String format, long a, long b, long c) {
+        if (isEnabled(INFO)) {
+            record(INFO, format, 3, a, b, c);
+        }
+    }
+
+    static void d(String format) {
+        if (isEnabled(DEBUG)) {
+            record(DEBUG, format, 0, 0, 0, 0);
+        }
+    }
+
+    static void d(String format, long a) {
+        if (isEnabled(DEBUG)) {
+            record(DEBUG, format, 1, a, 0, 0);
+        }
+    }
+
+    static void d(String format, long a, long b) {
+        if (isEnabled(DEBUG)) {
+            record(DEBUG, format, 2, a, b, 0);
+        }
+    }
+
+    static void d(String format, long a, long b, long c) {
+        if (isEnabled(DEBUG)) {
+            record(DEBUG, format, 3, a, b, c);
+        }
+    }
+
+    private static void record(int level, String format, int argCount, long a, long b, long c) {
+        int slot = (int) (sequence.getAndIncrement() & MASK);
+        times[slot] = System.nanoTime();
+        threads[slot] = Thread.currentThread().getId();
+        levels[slot] = (byte) level;
+        formats[slot] = format;
+        argCounts[slot] = argCount;
+        args[slot * 3] = a;
+        args[slot * 3 + 1] = b;
+        args[slot * 3 + 2] = c;
+    }
+
+    // Сколько записей сделано с последней очистки (в кольце не больше CAPACITY)
+    static long getRecorded() {
+        return sequence.get();
+    }
+
+    // Выгрузка кольца от старых записей к новым. Время — от первой записи
+    // в кольце, в миллисекундах; t — id потока.
+    static String dump() {
+        StringBuilder out = new StringBuilder();
+        long end = sequence.get();
+        long start = Math.max(0, end - CAPACITY);
+        long origin = start < end ? times[(int) (start & MASK)] : 0;
+        for (long seq = start; seq < end; seq++) {
+            int slot = (int) (seq & MASK);
+            String format = formats[slot];
+            if (format == null) {
+                continue;
+            }
+            out.append(String.format(Locale.ROOT, "%10.3f %c t%-3d ",
+                    (times[slot] - origin) / 1e6, levelName(levels[slot]), threads[slot]));
+            switch (argCounts[slot]) {
+                case 0:
+                    out.append(format);
+                    break;
+                case 1:
+                    out.append(String.format(Locale.ROOT, format, args[slot * 3]));
+                    break;
+                case 2:
+                    out.append(String.format(Locale.ROOT, format, args[slot * 3], args[slot * 3 + 1]));
+                    break;
+                default:
+                    out.append(String.format(Locale.ROOT, format, args[slot * 3], args[slot * 3 + 1],
+                            args[slot * 3 + 2]));
+                    break;
+            }
+            out.append('\n');
+        }
+        return out.toString();
+    }
+
+    static void clear() {
+        sequence.set(0);
+        for (int i = 0; i < CAPACITY; i++) {
+            formats[i] = null;
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package com.example.labrite;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class BidirectionalSlideSolverTest {
+
+    @Test
+    public void matchesBfsOnRandomLevels() {
+        Random random = new Random(42);
+        SlideSolver bfs = new SlideSolver();
+        BidirectionalSlideSolver bidirectional = new BidirectionalSlideSolver();
+        for (int i = 0; i < 2000; i++) {
+            int width = 4 + random.nextInt(40);
+            int height = 4 + random.nextInt(40);
+            LevelGrid grid = TestGrids.randomGrid(random, width, height, random.nextDouble() * 0.4);
+            grid.clearWall(1, 1);
+            grid.clearWall(width - 2, height - 2);
+            SlideTable table = new SlideTable(width, height);
+            table.rebuild(grid);
+
+            int start = table.cell(1, 1);
+            int target = table.cell(width - 2, height - 2);
+            assertEquals("level " + i, bfs.minMoves(table, start, target),
+                    bidirectional.minMoves(table, start, target));
+        }
+    }
+
+    @Test
+    public void startEqualsTarget() {
+        LevelGrid grid = new LevelGrid(5, 5);
+        grid.fillBorder();
+        SlideTable table = new SlideTable(5, 5);
+        table.rebuild(grid);
+        assertEquals(0, new BidirectionalSlideSolver().minMoves(table, table.cell(2, 2), table.cell(2, 2)));
+    }
+
+    @Test
+    public void unreachableTarget() {
+        LevelGrid grid = new LevelGrid(7, 7);
+        grid.fillBorder();
+        for (int y = 0; y < 7; y++) {
+            grid.setWall(3, y);
+        }
+        SlideTable table = new SlideTable(7, 7);
+        table.rebuild(grid);
+        assertEquals(-1, new BidirectionalSlideSolver().minMoves(table, table.cell(1, 1), table.cell(5, 5)));
+    }
+
+    @Test
+    public void visitsFewerStatesOnLongSolutions() {
+        Random random = new Random(7);
+        SlideSolver bfs = new SlideSolver();
+        BidirectionalSlideSolver bidirectional = new BidirectionalSlideSolver();
+        long bfsVisited = 0;
+        long bidirectionalVisited = 0;
+        int measured = 0;
+        for (int i = 0; i < 200; i++) {
+            LevelGrid grid = TestGrids.randomGrid(random, 128, 128, 0.12);
+            grid.clearWall(1, 1);
+            grid.clearWall(126, 126);
+            SlideTable table = new SlideTable(128, 128);
+            table.rebuild(grid);
+            int start = table.cell(1, 1);
+            int target = table.cell(126, 126);
+            int expected = bfs.minMoves(table, start, target);
+            if (expected < 6) {
+                continue;
+            }
+            assertEquals(expected, bidirectional.minMoves(table, start, target));
+            bfsVisited += bfs.getVisitedCount();
+            bidirectionalVisited += bidirectional.getVisitedCount();
+            measured++;
+        }
+        assertTrue(measured > 0);
+        assertTrue("bidirectional " + bidirectionalVisited + " vs bfs " + bfsVisited,
+                bidirectionalVisited < bfsVisited);
+    }
+}
@@ -0,0 +1,118 @@
+package com.example.labrite;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class BoardRendererTest {
+
+    // Считает вызовы вместо рисования
+    private static final class CountingSurface implements BoardSurface {
+        int rects;
+        int wallRects;
+        int lineCalls;
+        int lineSegments;
+        float maxRight;
+        float maxBottom;
+
+        @Override
+        public void drawRect(int paint, float left, float top, float right, float bottom) {
+            rects++;
+            if (paint == PAINT_WALL) {
+                wallRects++;
+            }
+            maxRight = Math.max(maxRight, right);
+            maxBottom = Math.max(maxBottom, bottom);
+        }
+
+        @Override
+        public void drawGridLines(float[] points, int offset, int count) {
+            lineCalls++;
+            lineSegments += count / 4;
+        }
+
+        int drawCalls() {
+            return rects + lineCalls;
+        }
+    }
+
+    @Test
+    public void borderedEmptyBoardIsSixCalls() {
+        LevelGrid grid = new LevelGrid(64, 64);
+        grid.fillBorder();
+        CountingSurface surface = new CountingSurface();
+        new BoardRenderer().render(BoardGeometry.build(grid), surface, 0, 0, 64, 64, 10f);
+
+        // Фон, четыре стороны рамки и вся сетка одним вызовом
+        assertEquals(6, surface.drawCalls());
+        assertEquals(4, surface.wallRects);
+        assertEquals(1, surface.lineCalls);
+        assertEquals(65 + 65, surface.lineSegments);
+    }
+
+    @Test
+    public void mergedRectsCoverExactlyTheWalls() {
+        for (int level = 1; level <= 12; level++) {
+            long seed = LevelSeeds.forLevel(7L, level);
+            LevelGenerator generator = new LevelGenerator(32, 32);
+            int moves = generator.generateCandidate(level, seed);
+            LevelGrid grid = generator.snapshot(seed, moves, 0).grid;
+            BoardGeometry geometry = BoardGeometry.build(grid);
+
+            int[] covered = new int[32 * 32];
+            for (int i = 0; i < geometry.getWallRectCount(); i++) {
+                for (int y = geometry.wallTop(i); y < geometry.wallBottom(i); y++) {
+                    for (int x = geometry.wallLeft(i); x < geometry.wallRight(i); x++) {
+                        covered[y * 32 + x]++;
+                    }
+                }
+            }
+            for (int y = 0; y < 32; y++) {
+                for (int x = 0; x < 32; x++) {
+                    assertEquals("level " + level + " cell " + x + "," + y,
+                            grid.isWall(x, y) ? 1 : 0, covered[y * 32 + x]);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void generatedLevelsStayWithinDrawBudget() {
+        BoardRenderer renderer = new BoardRenderer();
+        for (int size : new int[] {10, 16, 32, 64, 128, 256}) {
+            for (int level = 1; level <= 8; level++) {
+                long seed = LevelSeeds.forLevel(11L, level);
+                LevelGenerator generator = new LevelGenerator(size, size);
+                int moves = generator.generateCandidate(level, seed);
+                BoardGeometry geometry = BoardGeometry.build(generator.snapshot(seed, moves, 0).grid);
+
+                CountingSurface surface = new CountingSurface();
+                renderer.render(geometry, surface, 0, 0, size, size, 4f);
+
+                // Раньше было по два прямоугольника на клетку; теперь — не больше
+                // одного вызова на четыре клетки плюс фон и сетка
+                int budget = 2 + size * size / 4;
+                assertTrue(size + "x" + size + " level " + level + ": " + surface.drawCalls() + " > " + budget,
+                        surface.drawCalls() <= budget);
+                assertEquals(1, surface.lineCalls);
+            }
+        }
+    }
+
+    @Test
+    public void windowClipsWallsToItsBounds() {
+        LevelGrid grid = new LevelGrid(128, 128);
+        grid.fillBorder();
+        for (int x = 10; x < 120; x++) {
+            grid.setWall(x, 50);
+        }
+        CountingSurface surface = new CountingSurface();
+        new BoardRenderer().render(BoardGeometry.build(grid), surface, 40, 40, 20, 20, 8f);
+
+        // В окно попадает только часть горизонтальной стены
+        assertEquals(1, surface.wallRects);
+        assertEquals(20 * 8f, surface.maxRight, 0f);
+        assertEquals(20 * 8f, surface.maxBottom, 0f);
+        assertEquals(21 + 21, surface.lineSegments);
+    }
+}
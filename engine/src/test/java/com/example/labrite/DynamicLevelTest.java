@@ -0,0 +1,44 @@
+package com.example.labrite;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class DynamicLevelTest {
+
+    @Test
+    public void repairedDistanceMatchesFullSearch() {
+        Random random = new Random(3);
+        SlideSolver bfs = new SlideSolver();
+        for (int level = 0; level < 300; level++) {
+            int width = 6 + random.nextInt(30);
+            int height = 6 + random.nextInt(30);
+            LevelGrid grid = new LevelGrid(width, height);
+            grid.fillBorder();
+            SlideTable table = new SlideTable(width, height);
+            table.rebuild(grid);
+            int start = table.cell(1, 1);
+            int target = table.cell(width - 2, height - 2);
+
+            DynamicLevel dynamic = new DynamicLevel(grid, table);
+            dynamic.reset(start, target);
+            for (int edit = 0; edit < 80; edit++) {
+                int x = 1 + random.nextInt(width - 2);
+                int y = 1 + random.nextInt(height - 2);
+                int cell = table.cell(x, y);
+                if (cell == start || cell == target) {
+                    continue;
+                }
+                // В основном добавляем стены, как ensureMinMoves, иногда снимаем
+                dynamic.setWall(x, y, random.nextInt(5) != 0);
+                if (random.nextBoolean()) {
+                    assertEquals("level " + level + " edit " + edit,
+                            bfs.minMoves(table, start, target), dynamic.minMoves());
+                }
+            }
+            assertEquals(bfs.minMoves(table, start, target), dynamic.minMoves());
+        }
+    }
+}
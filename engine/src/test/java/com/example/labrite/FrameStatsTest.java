@@ -0,0 +1,72 @@
+package com.example.labrite;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class FrameStatsTest {
+
+    private static final long PERIOD = FrameStats.DEFAULT_FRAME_PERIOD_NANOS;
+
+    @Test
+    public void droppedFramesCountWholePeriods() {
+        FrameStats stats = new FrameStats();
+        long time = 0;
+        stats.onFrame(time, 2_000_000, FrameStats.Phase.SLIDE, false);
+        time += PERIOD;
+        stats.onFrame(time, 2_000_000, FrameStats.Phase.SLIDE, true);
+        // Следующий кадр через три периода — два пропуска
+        time += 3 * PERIOD;
+        stats.onFrame(time, 40_000_000, FrameStats.Phase.SLIDE, true);
+        time += PERIOD * 3;
+        stats.onFrame(time, 1_000_000, FrameStats.Phase.TRANSITION, true);
+
+        assertEquals(3, stats.getFrames(FrameStats.Phase.SLIDE));
+        assertEquals(2, stats.getDropped(FrameStats.Phase.SLIDE));
+        assertEquals(2, stats.getDropped(FrameStats.Phase.TRANSITION));
+        assertEquals(3, stats.getIntervals().getCount());
+        assertEquals(4, stats.getDrawTimes().getCount());
+        assertEquals(40_000_000, stats.getDrawTimes().getMaxNanos());
+    }
+
+    @Test
+    public void pausesAreNotIntervals() {
+        FrameStats stats = new FrameStats();
+        stats.onFrame(0, 1_000_000, FrameStats.Phase.IDLE, false);
+        stats.onFrame(2 * FrameStats.MAX_INTERVAL_NANOS, 1_000_000, FrameStats.Phase.IDLE, true);
+        stats.onPause();
+        stats.onFrame(3 * FrameStats.MAX_INTERVAL_NANOS, 1_000_000, FrameStats.Phase.IDLE, true);
+        assertEquals(0, stats.getIntervals().getCount());
+        assertEquals(0, stats.getDropped(FrameStats.Phase.IDLE));
+    }
+
+    @Test
+    public void unscheduledRedrawsAreNotDrops() {
+        FrameStats stats = new FrameStats();
+        // Перерисовки по касанию с простоем между ними: часы их не запрашивали
+        stats.onFrame(0, 1_000_000, FrameStats.Phase.IDLE, false);
+        stats.onFrame(5 * PERIOD, 1_000_000, FrameStats.Phase.IDLE, false);
+        stats.onFrame(40 * PERIOD, 1_000_000, FrameStats.Phase.IDLE, false);
+        // Анимация стартует с перерисовки, следующий кадр часов опоздал на один период
+        stats.onFrame(41 * PERIOD, 1_000_000, FrameStats.Phase.SLIDE, true);
+        stats.onFrame(43 * PERIOD, 1_000_000, FrameStats.Phase.SLIDE, true);
+        assertEquals(3, stats.getFrames(FrameStats.Phase.IDLE));
+        assertEquals(0, stats.getDropped(FrameStats.Phase.IDLE));
+        assertEquals(1, stats.getDropped(FrameStats.Phase.SLIDE));
+        assertEquals(2, stats.getIntervals().getCount());
+    }
+
+    @Test
+    public void percentilesUseQuarterMillisecondBuckets() {
+        FrameStats.Histogram histogram = new FrameStats.Histogram();
+        for (int i = 0; i < 99; i++) {
+            histogram.record(16_600_000);
+        }
+        histogram.record(250_000_000);
+        assertEquals(16_750_000, histogram.percentileNanos(50));
+        assertEquals(16_750_000, histogram.percentileNanos(99));
+        assertEquals(250_000_000, histogram.percentileNanos(100));
+        histogram.reset();
+        assertEquals(0, histogram.percentileNanos(50));
+    }
+}
@@ -0,0 +1,91 @@
+package com.example.labrite;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class HintCacheTest {
+
+    private static Level generate(int size, int level, long session) {
+        long seed = LevelSeeds.forLevel(session, level);
+        LevelGenerator generator = new LevelGenerator(size, size);
+        int moves = generator.generateCandidate(level, seed);
+        return generator.snapshot(seed, moves, moves + 2);
+    }
+
+    // Первый решаемый кандидат, начиная с данного зерна партии
+    private static Level generateSolvable(int size, int level, long session) {
+        while (true) {
+            Level ready = generate(size, level, session++);
+            if (ready.minMoves >= 3) {
+                return ready;
+            }
+        }
+    }
+
+    @Test
+    public void pathReplaysToTargetInMinMoves() {
+        SlideSolver solver = new SlideSolver();
+        for (int level = 1; level <= 12; level++) {
+            Level ready = generate(16, level, 21L);
+            SlideTable table = ready.table;
+            int start = table.cell(ready.startX, ready.startY);
+            int target = table.cell(ready.targetX, ready.targetY);
+            int moves = solver.minMoves(table, start, target);
+            Direction[] path = solver.pathTo(target);
+            if (moves < 0) {
+                assertNull(path);
+                continue;
+            }
+            assertEquals(moves, path.length);
+            int cell = start;
+            for (Direction direction : path) {
+                cell = table.stop(cell, direction);
+            }
+            assertEquals("level " + level, target, cell);
+        }
+    }
+
+    @Test
+    public void followingHintsSolvesOnlyOnce() {
+        HintCache hints = new HintCache();
+        Level ready = generateSolvable(32, 9, 5L);
+        SlideTable table = ready.table;
+        int cell = table.cell(ready.startX, ready.startY);
+        int moves = 0;
+        Direction hint;
+        while ((hint = hints.nextMove(ready, table.cellX(cell), table.cellY(cell))) != null) {
+            cell = table.stop(cell, hint);
+            moves++;
+        }
+        assertEquals(table.cell(ready.targetX, ready.targetY), cell);
+        assertEquals(ready.minMoves, moves);
+        assertEquals(1, hints.getSolveCount());
+    }
+
+    @Test
+    public void leavingThePathResolvesFromNewPosition() {
+        HintCache hints = new HintCache();
+        Level ready = generateSolvable(16, 10, 8L);
+        SlideTable table = ready.table;
+        int start = table.cell(ready.startX, ready.startY);
+        Direction best = hints.nextMove(ready, ready.startX, ready.startY);
+        assertNotNull(best);
+
+        // Ищем ход, уводящий с оптимального пути
+        SlideSolver solver = new SlideSolver();
+        int target = table.cell(ready.targetX, ready.targetY);
+        for (Direction direction : Direction.values()) {
+            int next = table.stop(start, direction);
+            if (next == start || direction == best) {
+                continue;
+            }
+            Direction hint = hints.nextMove(ready, table.cellX(next), table.cellY(next));
+            int remaining = solver.minMoves(table, next, target);
+            if (remaining > 0) {
+                assertNotNull(hint);
+                assertEquals(remaining - 1, solver.minMoves(table, table.stop(next, hint), target));
+            }
+        }
+    }
+}
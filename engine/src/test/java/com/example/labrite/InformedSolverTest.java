@@ -0,0 +1,65 @@
+package com.example.labrite;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class InformedSolverTest {
+
+    @Test
+    public void matchesBfsOnRandomLevels() {
+        Random random = new Random(17);
+        SlideSolver bfs = new SlideSolver();
+        InformedSolver informed = new InformedSolver();
+        for (int i = 0; i < 2000; i++) {
+            int width = 4 + random.nextInt(40);
+            int height = 4 + random.nextInt(40);
+            LevelGrid grid = TestGrids.randomGrid(random, width, height, random.nextDouble() * 0.4);
+            SlideTable table = new SlideTable(width, height);
+            table.rebuild(grid);
+
+            // Случайные старт и цель, в том числе в стенах и недостижимые
+            int start = table.cell(1 + random.nextInt(width - 2), 1 + random.nextInt(height - 2));
+            int target = table.cell(1 + random.nextInt(width - 2), 1 + random.nextInt(height - 2));
+            int expected = bfs.minMoves(table, start, target);
+            assertEquals("A* level " + i, expected, informed.minMovesAStar(table, start, target));
+            assertEquals("IDA* level " + i, expected, informed.minMovesIdaStar(table, start, target));
+        }
+    }
+
+    @Test
+    public void heuristicIsAdmissible() {
+        Random random = new Random(3);
+        SlideSolver bfs = new SlideSolver();
+        for (int i = 0; i < 200; i++) {
+            LevelGrid grid = TestGrids.randomGrid(random, 12, 12, 0.25);
+            SlideTable table = new SlideTable(12, 12);
+            table.rebuild(grid);
+            int target = table.cell(1 + random.nextInt(10), 1 + random.nextInt(10));
+            for (int cell = 0; cell < 144; cell++) {
+                int moves = bfs.minMoves(table, cell, target);
+                if (moves >= 0) {
+                    assertTrue(InformedSolver.heuristic(cell, 12, table.cellX(target), table.cellY(target)) <= moves);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void solverKindDoesNotChangeGeneratedLevels() {
+        for (int level = 1; level <= 12; level++) {
+            long seed = LevelSeeds.forLevel(31L, level);
+            LevelGenerator reference = new LevelGenerator(16, 16);
+            int expected = reference.generateCandidate(level, seed);
+            for (LevelGenerator.SolverKind kind : LevelGenerator.SolverKind.values()) {
+                LevelGenerator generator = new LevelGenerator(16, 16);
+                generator.setSolverKind(kind);
+                assertEquals(kind + " level " + level, expected, generator.generateCandidate(level, seed));
+                assertTrue(generator.snapshot(seed, expected, 0).grid
+                        .sameWalls(reference.snapshot(seed, expected, 0).grid));
+            }
+        }
+    }
+}
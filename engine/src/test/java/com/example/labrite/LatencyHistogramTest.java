@@ -0,0 +1,37 @@
+package com.example.labrite;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class LatencyHistogramTest {
+
+    @Test
+    public void percentilesAreBucketUpperBounds() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (int i = 0; i < 98; i++) {
+            histogram.record(3_000); // 3 мкс — корзина [2, 4)
+        }
+        histogram.record(1_500_000);
+        histogram.record(90_000_000);
+        assertEquals(100, histogram.getCount());
+        assertEquals(4, histogram.percentileMicros(50));
+        assertEquals(4, histogram.percentileMicros(98));
+        assertEquals(2048, histogram.percentileMicros(99));
+        // Последняя корзина обрезается точным максимумом
+        assertEquals(90_000, histogram.percentileMicros(100));
+        assertEquals(90_000_000, histogram.getMaxNanos());
+    }
+
+    @Test
+    public void emptyAndReset() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        assertEquals(0, histogram.percentileMicros(99));
+        histogram.record(0);
+        histogram.record(-5);
+        assertEquals(2, histogram.getBucketCount(0));
+        histogram.reset();
+        assertEquals(0, histogram.getCount());
+        assertEquals(0, histogram.getMaxNanos());
+    }
+}
@@ -0,0 +1,136 @@
+package com.example.labrite;
+
+import org.junit.Test;
+
+import java.util.concurrent.CancellationException;
+
+import static org.junit.Assert.*;
+
+public class LevelGeneratorTest {
+
+    @Test
+    public void sameSeedGivesSameCandidate() {
+        for (int level = 1; level <= 12; level++) {
+            long seed = LevelSeeds.forAttempt(LevelSeeds.forLevel(2024L, level), 0);
+            LevelGenerator first = new LevelGenerator(10, 10);
+            LevelGenerator second = new LevelGenerator(10, 10);
+            int firstMoves = first.generateCandidate(level, seed);
+            // Второй генератор уже поработал с другим зерном — это не должно влиять
+            second.generateCandidate(level, seed + 1);
+            int secondMoves = second.generateCandidate(level, seed);
+
+            assertEquals(firstMoves, secondMoves);
+            assertTrue(first.snapshot(seed, firstMoves, 0).grid.sameWalls(second.snapshot(seed, secondMoves, 0).grid));
+        }
+    }
+
+    @Test
+    public void rebuildReturnsTheAcceptedAttempt() throws InterruptedException {
+        ParallelLevelGenerator many = new ParallelLevelGenerator(4);
+        ParallelLevelGenerator other = new ParallelLevelGenerator(1);
+        try {
+            for (int level = 1; level <= 12; level++) {
+                for (int size : new int[] {10, 32}) {
+                    long seed = LevelSeeds.forLevel(99L, level);
+                    Level a = many.generate(level, 10, size, size, seed);
+                    // Другой генератор, без перебора и сроков: тот же уровень по зерну и попытке
+                    Level b = other.rebuild(level, 10, size, size, seed, a.attempt);
+                    assertEquals(a.minMoves, b.minMoves);
+                    assertEquals(a.movesLeft, b.movesLeft);
+                    assertEquals(a.attempt, b.attempt);
+                    assertEquals(seed, b.seed);
+                    assertEquals(a.startX, b.startX);
+                    assertEquals(a.targetY, b.targetY);
+                    assertTrue("level " + level, a.grid.sameWalls(b.grid));
+                }
+            }
+        } finally {
+            many.shutdown();
+            other.shutdown();
+        }
+    }
+
+    @Test
+    public void supersededGenerationIsCancelled() throws InterruptedException {
+        ParallelLevelGenerator generator = new ParallelLevelGenerator(2);
+        try {
+            try {
+                generator.generate(9, 10, 64, 64, LevelSeeds.forLevel(1L, 9), () -> true);
+                fail("superseded generation must not return a level");
+            } catch (CancellationException expected) {
+                // ожидаемо
+            }
+            // Отмена не остаётся на генераторе вызывающего потока
+            Level level = generator.generate(9, 10, 64, 64, LevelSeeds.forLevel(1L, 9));
+            assertTrue(level.minMoves >= ParallelLevelGenerator.MIN_ACCEPTED_MOVES);
+        } finally {
+            generator.shutdown();
+        }
+    }
+
+    @Test
+    public void snapshotIsDetachedAndFrozen() {
+        long seed = LevelSeeds.forLevel(3L, 5);
+        LevelGenerator generator = new LevelGenerator(16, 16);
+        Level level = generator.snapshot(seed, generator.generateCandidate(5, seed), 0);
+        LevelGrid before = level.grid.copy();
+
+        // Генератор продолжает работать на своём поле — снимок не меняется
+        generator.generateCandidate(6, seed + 1);
+        assertTrue(level.grid.sameWalls(before));
+        assertTrue(level.grid.isFrozen());
+        try {
+            level.grid.setWall(2, 2);
+            fail("published grid must reject writes");
+        } catch (IllegalStateException expected) {
+            // ожидаемо
+        }
+    }
+
+    @Test
+    public void backwardConstructionHitsExactMoves() {
+        SlideSolver solver = new SlideSolver();
+        int built = 0;
+        for (int level = 1; level <= 20; level++) {
+            int targetMoves = LevelGenerator.targetMovesFor(level);
+            for (long session = 0; session < 5; session++) {
+                long seed = LevelSeeds.forLevel(session, level);
+                LevelGenerator generator = new LevelGenerator(32, 32);
+                int moves = generator.generateBackward(level, seed, targetMoves);
+                if (moves < 0) {
+                    continue;
+                }
+                built++;
+                assertEquals(targetMoves, moves);
+                Level ready = generator.snapshot(seed, moves, moves + 2);
+                SlideTable table = ready.table;
+                assertEquals("level " + level + " session " + session, targetMoves, solver.minMoves(table,
+                        table.cell(ready.startX, ready.startY), table.cell(ready.targetX, ready.targetY)));
+            }
+        }
+        // На поле 32x32 обратное построение почти никогда не уходит в перебор
+        assertTrue("built " + built, built >= 90);
+    }
+
+    @Test
+    public void statsCountEveryLevel() throws InterruptedException {
+        ParallelLevelGenerator generator = new ParallelLevelGenerator(2);
+        try {
+            for (int level = 1; level <= 10; level++) {
+                generator.generate(level, 10, 16, 16, LevelSeeds.forLevel(4L, level));
+            }
+            GenerationStats stats = generator.getStats();
+            assertEquals(10, stats.getLevels());
+            assertTrue(stats.getAttempts() >= stats.getLevels());
+            assertTrue(stats.getSolverCalls() > 0);
+            assertEquals(10, stats.getLevelLatency().getCount());
+            long histogram = 0;
+            for (int moves = 0; moves <= GenerationStats.MAX_MOVES_BUCKET; moves++) {
+                histogram += stats.getMinMovesCount(moves);
+            }
+            assertEquals(10, histogram);
+        } finally {
+            generator.shutdown();
+        }
+    }
+}
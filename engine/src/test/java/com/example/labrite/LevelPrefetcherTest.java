@@ -0,0 +1,39 @@
+package com.example.labrite;
+
+import org.junit.Test;
+
+import java.util.concurrent.Future;
+
+import static org.junit.Assert.*;
+
+public class LevelPrefetcherTest {
+
+    @Test
+    public void queuedPrefetchIsNotWaitedFor() throws Exception {
+        ParallelLevelGenerator generator = new ParallelLevelGenerator(2);
+        LevelPrefetcher prefetcher = new LevelPrefetcher(generator, 3);
+        try {
+            long first = LevelSeeds.forLevel(6L, 9);
+            long second = LevelSeeds.forLevel(6L, 10);
+            prefetcher.prefetch(9, 10, 64, 64, first);
+            prefetcher.prefetch(10, 10, 64, 64, second);
+
+            // Уровень 10 ещё стоит в очереди за девятым: его строит сам startLevel.
+            // poll здесь не вызывается — он выбросил бы девятый как пройденный
+            assertNull(prefetcher.takePending(10, 10, 64, 64, second));
+            assertEquals(1, prefetcher.getMisses());
+
+            // Девятый уже взят в работу — его дожидаются, и это не промах
+            Thread.sleep(100);
+            Future<Level> pending = prefetcher.takePending(9, 10, 64, 64, first);
+            assertNotNull(pending);
+            assertEquals(first, pending.get().seed);
+            assertEquals(1, prefetcher.getPendingWaits());
+            assertEquals(1, prefetcher.getMisses());
+            assertEquals(0, prefetcher.getHits());
+        } finally {
+            prefetcher.shutdown();
+            generator.shutdown();
+        }
+    }
+}
@@ -0,0 +1,87 @@
+package com.example.labrite;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+
+import static org.junit.Assert.*;
+
+public class LevelStoreTest {
+
+    private File file;
+
+    @Before
+    public void setUp() throws IOException {
+        file = File.createTempFile("levels", ".bin");
+        file.delete();
+    }
+
+    @After
+    public void tearDown() {
+        file.delete();
+    }
+
+    private static Level generate(int level, long seed) {
+        LevelGenerator generator = new LevelGenerator(10, 10);
+        int minMoves = generator.generateCandidate(level, seed);
+        return generator.snapshot(seed, 7, minMoves, minMoves + 2);
+    }
+
+    @Test
+    public void levelSurvivesReopen() throws IOException {
+        Level original = generate(3, 77L);
+        LevelStore store = LevelStore.open(file);
+        assertTrue(store.put(3, 12, original));
+        store.close();
+
+        LevelStore reopened = LevelStore.open(file);
+        assertEquals(1, reopened.count(3, 12, 10, 10));
+        Level restored = reopened.take(3, 12, 10, 10);
+        assertNotNull(restored);
+        assertTrue(original.grid.sameWalls(restored.grid));
+        assertEquals(original.minMoves, restored.minMoves);
+        assertEquals(original.movesLeft, restored.movesLeft);
+        assertEquals(original.seed, restored.seed);
+        assertEquals(7, restored.attempt);
+        assertEquals(original.targetX, restored.targetX);
+        // Взятый уровень из хранилища удаляется
+        assertNull(reopened.take(3, 12, 10, 10));
+        reopened.close();
+    }
+
+    @Test
+    public void differentParametersDoNotMatch() throws IOException {
+        LevelStore store = LevelStore.open(file);
+        store.put(5, 10, generate(5, 1L));
+        assertNull(store.take(5, 11, 10, 10));
+        assertNull(store.take(6, 10, 10, 10));
+        assertNull(store.take(5 + LevelStore.BUCKETS, 10, 10, 10));
+        assertNotNull(store.take(5, 10, 10, 10));
+        store.close();
+    }
+
+    @Test
+    public void oldestEntriesAreEvicted() throws IOException {
+        LevelStore store = LevelStore.open(file);
+        for (int i = 0; i < LevelStore.SLOTS_PER_BUCKET + 2; i++) {
+            store.put(2, 10, generate(2, i));
+        }
+        assertEquals(LevelStore.SLOTS_PER_BUCKET, store.count(2, 10, 10, 10));
+        // Первыми выдаются самые старые из оставшихся
+        assertEquals(2L, store.take(2, 10, 10, 10).seed);
+        store.close();
+        assertTrue(file.length() < 256 * 1024);
+    }
+
+    @Test
+    public void oversizedGridsAreSkipped() throws IOException {
+        LevelStore store = LevelStore.open(file);
+        LevelGenerator generator = new LevelGenerator(200, 200);
+        int minMoves = generator.generateCandidate(1, 5L);
+        assertFalse(store.put(1, 10, generator.snapshot(5L, minMoves, minMoves + 2)));
+        store.close();
+    }
+}
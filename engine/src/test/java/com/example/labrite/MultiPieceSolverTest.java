@@ -0,0 +1,161 @@
+package com.example.labrite;
+
+import org.junit.Test;
+
+import java.util.SplittableRandom;
+
+import static org.junit.Assert.*;
+
+public class MultiPieceSolverTest {
+
+    private static SlideTable openTable(int size) {
+        LevelGrid grid = new LevelGrid(size, size);
+        grid.fillBorder();
+        SlideTable table = new SlideTable(size, size);
+        table.rebuild(grid);
+        return table;
+    }
+
+    @Test
+    public void piecesBlockEachOther() {
+        SlideTable table = openTable(6);
+        int[] from = {table.cell(1, 1), table.cell(3, 1), table.cell(1, 3)};
+        int[] to = new int[3];
+        MultiPieceSolver.slidePieces(table, from, 3, Direction.RIGHT.ordinal(), to);
+        assertEquals(table.cell(3, 1), to[0]);
+        assertEquals(table.cell(4, 1), to[1]);
+        assertEquals(table.cell(4, 3), to[2]);
+        MultiPieceSolver.slidePieces(table, from, 3, Direction.DOWN.ordinal(), to);
+        assertEquals(table.cell(1, 3), to[0]);
+        assertEquals(table.cell(3, 4), to[1]);
+        assertEquals(table.cell(1, 4), to[2]);
+    }
+
+    @Test
+    public void interchangeablePiecesShareOneState() {
+        int[] a = {40, 7, 300};
+        int[] b = {300, 40, 7};
+        long state = PieceStates.canonical(a, 3);
+        assertEquals(state, PieceStates.canonical(b, 3));
+        assertEquals(7, PieceStates.cell(state, 0));
+        assertEquals(300, PieceStates.cell(state, 2));
+        int[] top = {65535, 65534, 65533, 65532};
+        assertEquals(65532, PieceStates.cell(PieceStates.canonical(top, 4), 0));
+    }
+
+    @Test
+    public void onePieceMatchesSingleBallSolver() {
+        SplittableRandom random = new SplittableRandom(11);
+        MultiPieceSolver joint = new MultiPieceSolver();
+        SlideSolver single = new SlideSolver();
+        for (int round = 0; round < 50; round++) {
+            LevelGrid grid = new LevelGrid(12, 12);
+            grid.fillBorder();
+            for (int i = 0; i < 30; i++) {
+                grid.setWall(random.nextInt(10) + 1, random.nextInt(10) + 1);
+            }
+            grid.clearWall(1, 1);
+            grid.clearWall(10, 10);
+            SlideTable table = new SlideTable(12, 12);
+            table.rebuild(grid);
+            int start = table.cell(1, 1);
+            int target = table.cell(10, 10);
+            assertEquals(single.minMoves(table, start, target),
+                    joint.minMoves(table, start, target, 1));
+        }
+    }
+
+    @Test
+    public void stateBudgetIsEnforced() {
+        SplittableRandom random = new SplittableRandom(5);
+        LevelGrid grid = new LevelGrid(32, 32);
+        grid.fillBorder();
+        for (int i = 0; i < 150; i++) {
+            grid.setWall(random.nextInt(30) + 1, random.nextInt(30) + 1);
+        }
+        int[] cells = {33, 34, 35};
+        for (int cell : cells) {
+            grid.clearWall(cell % 32, cell / 32);
+        }
+        SlideTable table = new SlideTable(32, 32);
+        table.rebuild(grid);
+        long start = PieceStates.canonical(cells, 3);
+        MultiPieceSolver full = new MultiPieceSolver();
+        int depth = full.explore(table, start, 3);
+        assertFalse(full.isBudgetExceeded());
+        assertTrue(full.getExploredCount() > 50);
+
+        // Та же самая дальняя расстановка, но бюджет в 50 состояний
+        long far = full.getExploredState(full.getExploredCount() - 1);
+        MultiPieceSolver small = new MultiPieceSolver(50);
+        assertEquals(MultiPieceSolver.BUDGET_EXCEEDED, small.minMoves(table, start, far, 3));
+        assertTrue(small.isBudgetExceeded());
+        assertTrue(small.getExploredCount() <= 50);
+        assertEquals(depth, full.minMoves(table, start, far, 3));
+    }
+
+    @Test
+    public void longHashSetHasFixedBudget() {
+        LongHashSet set = new LongHashSet(3);
+        assertTrue(set.add(5));
+        assertFalse(set.add(5));
+        assertTrue(set.add(Long.MIN_VALUE));
+        assertTrue(set.add(0));
+        assertTrue(set.isFull());
+        assertTrue(set.contains(Long.MIN_VALUE));
+        assertFalse(set.contains(6));
+        try {
+            set.add(6);
+            fail("set accepted a key over its budget");
+        } catch (IllegalStateException expected) {
+        }
+        set.clear();
+        assertEquals(0, set.size());
+        assertFalse(set.contains(5));
+    }
+
+    @Test
+    public void generatedLevelHasExactMinMoves() {
+        MultiPieceGenerator generator = new MultiPieceGenerator(16, 16);
+        MultiPieceSolver solver = new MultiPieceSolver();
+        for (int pieces = 2; pieces <= 4; pieces++) {
+            for (int level = 1; level <= 12; level += 5) {
+                long seed = LevelSeeds.forLevel(9L, level);
+                Level built = generator.generate(level, pieces, 10, seed);
+                assertEquals(pieces, built.getPieceCount());
+                int[] starts = built.pieceStarts.clone();
+                int[] targets = built.pieceTargets.clone();
+                int moves = solver.minMoves(built.table, PieceStates.canonical(starts, pieces),
+                        PieceStates.canonical(targets, pieces), pieces);
+                assertEquals(built.minMoves, moves);
+                assertTrue("level " + level + " pieces " + pieces + " moves " + moves,
+                        moves >= Math.min(LevelGenerator.targetMovesFor(level), 4));
+                assertTrue(moves >= ParallelLevelGenerator.MIN_ACCEPTED_MOVES);
+
+                Level again = generator.generate(level, pieces, 10, seed);
+                assertArrayEquals(built.pieceTargets, again.pieceTargets);
+                assertTrue(built.grid.sameWalls(again.grid));
+            }
+        }
+    }
+
+    @Test
+    public void degenerateWallsDoNotFailGeneration() {
+        // Здесь ensureMinMoves оставляет на поле шесть свободных клеток при любом зерне попытки
+        long[][] cases = {{12, 7, 1}, {12, 8, 5}, {32, 8, 6}};
+        for (long[] c : cases) {
+            int size = (int) c[0];
+            int level = (int) c[1];
+            long seed = LevelSeeds.forLevel(c[2], level);
+            for (int pieces = 2; pieces <= 4; pieces++) {
+                Level built = new MultiPieceGenerator(size, size).generate(level, pieces, 10, seed);
+                assertTrue(built.minMoves >= ParallelLevelGenerator.MIN_ACCEPTED_MOVES);
+                // Без часов в бюджете новый генератор строит тот же уровень
+                Level again = new MultiPieceGenerator(size, size).generate(level, pieces, 10, seed);
+                assertArrayEquals(built.pieceStarts, again.pieceStarts);
+                assertArrayEquals(built.pieceTargets, again.pieceTargets);
+                assertTrue(built.grid.sameWalls(again.grid));
+            }
+        }
+    }
+}
@@ -0,0 +1,194 @@
+package com.example.labrite;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+import static org.junit.Assert.*;
+
+public class ReplayEngineTest {
+
+    private static final Direction[] DIRECTIONS = Direction.values();
+
+    // Играет уровень так, как играл бы GameView: случайные свайпы, в запись
+    // попадают только засчитанные; с hints — по подсказкам до победы
+    private static SessionLog playLevel(Level level, int number, int maxMoves, long seed, boolean hints) {
+        LevelPlay play = new LevelPlay();
+        SessionRecorder recorder = new SessionRecorder();
+        HintCache hintCache = new HintCache();
+        SplittableRandom random = new SplittableRandom(seed);
+        play.reset(level);
+        recorder.begin(level, number, maxMoves);
+        for (int swipe = 0; swipe < 40 && play.getOutcome() == LevelPlay.Outcome.PLAYING; swipe++) {
+            Direction direction = DIRECTIONS[random.nextInt(DIRECTIONS.length)];
+            if (hints) {
+                int cell = play.getCell(0);
+                direction = hintCache.nextMove(level, level.table.cellX(cell), level.table.cellY(cell));
+            }
+            if (play.move(direction)) {
+                recorder.onMove(direction);
+            }
+        }
+        return recorder.finish(play.getOutcome(), play.getMovesLeft());
+    }
+
+    private static SessionLog copyWith(SessionLog log, long fingerprint, int minMoves, LevelPlay.Outcome outcome) {
+        byte[] moves = new byte[log.getMoveCount()];
+        for (int i = 0; i < moves.length; i++) {
+            moves[i] = (byte) log.getMove(i);
+        }
+        return new SessionLog(log.level, log.maxMoves, log.gridWidth, log.gridHeight, log.pieceCount, log.seed,
+                log.attempt, fingerprint, minMoves, log.startMovesLeft, outcome, log.movesLeft, moves, moves.length);
+    }
+
+    private static SessionLog copyWith(SessionLog log, int minMoves, LevelPlay.Outcome outcome) {
+        return copyWith(log, log.fingerprint, minMoves, outcome);
+    }
+
+    @Test
+    public void logSurvivesRoundTripAndTornTail() throws IOException {
+        byte[] moves = {0, 3, 1, 2, 2};
+        SessionLog log = new SessionLog(7, 12, 16, 10, 3, -42L, -2, 0x1234_5678_9ABCL, -1, 14,
+                LevelPlay.Outcome.GAME_OVER, 0, moves, moves.length);
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        // Запись версии 1 с прошлых сборок: без попытки и отпечатка
+        out.writeByte(1);
+        out.writeInt(5);
+        out.writeShort(10);
+        out.writeShort(12);
+        out.writeShort(12);
+        out.writeByte(1);
+        out.writeLong(99L);
+        out.writeShort(4);
+        out.writeShort(10);
+        out.writeByte(LevelPlay.Outcome.COMPLETED.ordinal());
+        out.writeShort(6);
+        out.writeShort(0);
+        log.write(out);
+        log.write(out);
+        // Последняя запись оборвана на середине, как после убитого процесса
+        byte[] data = bytes.toByteArray();
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(data, 0, data.length - 3));
+
+        SessionLog old = SessionLog.read(in);
+        assertEquals(5, old.level);
+        assertEquals(99L, old.seed);
+        assertEquals(Level.NO_ATTEMPT, old.attempt);
+        assertEquals(SessionLog.NO_FINGERPRINT, old.fingerprint);
+        assertEquals(LevelPlay.Outcome.COMPLETED, old.outcome);
+        assertEquals(0, old.getMoveCount());
+
+        SessionLog read = SessionLog.read(in);
+        assertEquals(7, read.level);
+        assertEquals(12, read.maxMoves);
+        assertEquals(16, read.gridWidth);
+        assertEquals(10, read.gridHeight);
+        assertEquals(3, read.pieceCount);
+        assertEquals(-42L, read.seed);
+        assertEquals(-2, read.attempt);
+        assertEquals(0x1234_5678_9ABCL, read.fingerprint);
+        assertEquals(-1, read.minMoves);
+        assertEquals(14, read.startMovesLeft);
+        assertEquals(LevelPlay.Outcome.GAME_OVER, read.outcome);
+        assertEquals(0, read.movesLeft);
+        assertEquals(moves.length, read.getMoveCount());
+        for (int i = 0; i < moves.length; i++) {
+            assertEquals(moves[i], read.getMove(i));
+        }
+        assertNull(SessionLog.read(in));
+    }
+
+    @Test
+    public void recordedSessionsReplayToTheSameOutcome() throws InterruptedException {
+        ParallelLevelGenerator generator = new ParallelLevelGenerator(2);
+        ReplayEngine engine = new ReplayEngine(2, ReplayEngine.generating(generator));
+        try {
+            LevelPlay play = new LevelPlay();
+            for (int number = 1; number <= 6; number++) {
+                long seed = LevelSeeds.forLevel(8L, number);
+                Level level = generator.generate(number, 10, 12, 12, seed);
+                SessionLog won = playLevel(level, number, 10, seed, true);
+                assertEquals(LevelPlay.Outcome.COMPLETED, won.outcome);
+                assertEquals(ReplayEngine.Verdict.MATCH, engine.replay(won, play));
+                assertEquals(LevelPlay.Outcome.COMPLETED, play.getOutcome());
+
+                SessionLog random = playLevel(level, number, 10, seed, false);
+                assertEquals(ReplayEngine.Verdict.MATCH, engine.replay(random, play));
+                assertEquals(random.movesLeft, play.getMovesLeft());
+
+                // Другой итог — расхождение правил, другой minMoves — другой уровень
+                assertEquals(ReplayEngine.Verdict.OUTCOME_MISMATCH,
+                        engine.replay(copyWith(won, won.minMoves, LevelPlay.Outcome.PLAYING), play));
+                assertEquals(ReplayEngine.Verdict.LEVEL_MISMATCH,
+                        engine.replay(copyWith(won, won.minMoves + 1, won.outcome), play));
+                // Те же minMoves и запас ходов, но другое поле
+                assertEquals(ReplayEngine.Verdict.LEVEL_MISMATCH,
+                        engine.replay(copyWith(won, won.fingerprint + 1, won.minMoves, won.outcome), play));
+                // Запись несёт принятую попытку и отпечаток сыгранного поля
+                assertEquals(level.fingerprint, won.fingerprint);
+                assertEquals(level.attempt, won.attempt);
+            }
+            // Уровень строится один раз на набор параметров
+            assertEquals(6, engine.getCachedLevels());
+        } finally {
+            engine.shutdown();
+            generator.shutdown();
+        }
+    }
+
+    @Test
+    public void multiPieceSessionReplays() throws InterruptedException {
+        MultiPieceGenerator multi = new MultiPieceGenerator(12, 12);
+        List<SessionLog> logs = new ArrayList<>();
+        for (int number = 1; number <= 4; number++) {
+            long seed = LevelSeeds.forLevel(3L, number);
+            Level level = multi.generate(number, 3, 10, seed);
+            logs.add(playLevel(level, number, 10, seed, false));
+        }
+        // Уровни строятся заново из зерна записи, как в ReplaySessions
+        ParallelLevelGenerator generator = new ParallelLevelGenerator(2);
+        ReplayEngine engine = new ReplayEngine(2, ReplayEngine.generating(generator));
+        try {
+            ReplayEngine.Report report = engine.replayAll(logs);
+            assertEquals(logs.size(), report.count(ReplayEngine.Verdict.MATCH));
+        } finally {
+            engine.shutdown();
+            generator.shutdown();
+        }
+    }
+
+    @Test
+    public void parallelReplayMatchesEverySession() throws InterruptedException {
+        ParallelLevelGenerator generator = new ParallelLevelGenerator(2);
+        ReplayEngine engine = new ReplayEngine(4, ReplayEngine.generating(generator));
+        try {
+            List<SessionLog> logs = new ArrayList<>();
+            for (int number = 1; number <= 10; number++) {
+                long seed = LevelSeeds.forLevel(21L, number);
+                Level level = generator.generate(number, 10, 10, 10, seed);
+                for (int player = 0; player < 300; player++) {
+                    logs.add(playLevel(level, number, 10, seed + player, false));
+                }
+            }
+            // Испорченная запись в середине набора должна найтись на своём месте
+            logs.set(1234, copyWith(logs.get(1234), logs.get(1234).minMoves + 5, logs.get(1234).outcome));
+
+            ReplayEngine.Report report = engine.replayAll(logs);
+            assertEquals(logs.size(), report.getSessions());
+            assertEquals(logs.size() - 1, report.count(ReplayEngine.Verdict.MATCH));
+            assertEquals(ReplayEngine.Verdict.LEVEL_MISMATCH, report.getVerdict(1234));
+            assertEquals(10, engine.getCachedLevels());
+        } finally {
+            engine.shutdown();
+            generator.shutdown();
+        }
+    }
+}
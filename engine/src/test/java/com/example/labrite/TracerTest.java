@@ -0,0 +1,72 @@
+package com.example.labrite;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class TracerTest {
+
+    @Before
+    public void setUp() {
+        Tracer.clear();
+        Tracer.setLevel(Tracer.INFO);
+    }
+
+    @After
+    public void tearDown() {
+        Tracer.clear();
+        Tracer.setLevel(Tracer.INFO);
+        Tracer.setSectionSink(null);
+    }
+
+    @Test
+    public void runtimeLevelFiltersBeforeRecording() {
+        Tracer.d("hidden %d", 1);
+        Tracer.i("level %d seed %d", 3, 42);
+        Tracer.w("warn");
+        assertEquals(2, Tracer.getRecorded());
+        String dump = Tracer.dump();
+        assertTrue(dump, dump.contains("I t"));
+        assertTrue(dump, dump.contains("level 3 seed 42"));
+        assertFalse(dump, dump.contains("hidden"));
+
+        // Уровень времени выполнения не поднимает выше уровня сборки
+        Tracer.setLevel(Tracer.DEBUG);
+        Tracer.d("shown %d", 7);
+        assertEquals(Tracer.BUILD_LEVEL >= Tracer.DEBUG, Tracer.dump().contains("shown 7"));
+    }
+
+    @Test
+    public void ringKeepsNewestEntries() {
+        for (int i = 0; i < Tracer.CAPACITY + 10; i++) {
+            Tracer.i("entry %d", i);
+        }
+        String[] lines = Tracer.dump().split("\n");
+        assertEquals(Tracer.CAPACITY, lines.length);
+        assertTrue(lines[0], lines[0].endsWith("entry 10"));
+        assertTrue(lines[lines.length - 1].endsWith("entry " + (Tracer.CAPACITY + 9)));
+    }
+
+    @Test
+    public void sectionsGoToSink() {
+        final StringBuilder calls = new StringBuilder();
+        Tracer.beginSection("ignored");
+        Tracer.endSection();
+        Tracer.setSectionSink(new Tracer.SectionSink() {
+            @Override
+            public void beginSection(String name) {
+                calls.append('<').append(name);
+            }
+
+            @Override
+            public void endSection() {
+                calls.append('>');
+            }
+        });
+        Tracer.beginSection("solve");
+        Tracer.endSection();
+        assertEquals("<solve>", calls.toString());
+    }
+}
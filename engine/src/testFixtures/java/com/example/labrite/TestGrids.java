@@ -0,0 +1,25 @@
+package com.example.labrite;
+
+import java.util.Random;
+
+// Случайные поля для тестов и бенчмарков движка: рамка и стены заданной
+// плотности внутри. Одна версия на всех, чтобы сравнения решателей и
+// замеры шли на полях одного вида.
+final class TestGrids {
+
+    private TestGrids() {
+    }
+
+    static LevelGrid randomGrid(Random random, int width, int height, double density) {
+        LevelGrid grid = new LevelGrid(width, height);
+        grid.fillBorder();
+        for (int y = 1; y < height - 1; y++) {
+            for (int x = 1; x < width - 1; x++) {
+                if (random.nextDouble() < density) {
+                    grid.setWall(x, y);
+                }
+            }
+        }
+        return grid;
+    }
+}
@@ -21,4 +21,6 @@ dependencyResolutionManagement {
 
 rootProject.name = "Labrite"
 include(":app")
+include(":engine")
+include(":benchmarks")
  
\ No newline at end of file